@@ -8,9 +8,7 @@ package com.philips.research.bombase;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
-import org.springframework.scheduling.annotation.EnableAsync;
 
-@EnableAsync
 @EnableConfigurationProperties(ConfigProperties.class)
 @SpringBootApplication
 public class BomBase {
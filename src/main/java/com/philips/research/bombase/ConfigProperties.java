@@ -6,11 +6,24 @@
 package com.philips.research.bombase;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import pl.tlinkowski.annotation.basic.NullOr;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
 
 @ConfigurationProperties(prefix = "bom-base")
 public class ConfigProperties {
     private boolean scanLicenses = true;
     private boolean harvestClearlyDefined = true;
+    private String store = "memory";
+    private Path dataDirectory = Path.of(System.getProperty("user.home"), ".bom-base");
+    private Map<String, PoolProperties> pools = new HashMap<>();
+    private DataSize downloadCacheSize = DataSize.ofGigabytes(10);
+    private boolean persistDownloads = false;
+    private int scanProcesses = 0;
+    private @NullOr Path licenseTexts;
 
     public boolean isScanLicenses() {
         return scanLicenses;
@@ -29,4 +42,150 @@ public class ConfigProperties {
         this.harvestClearlyDefined = harvestClearlyDefined;
         return this;
     }
+
+    /**
+     * @return persistence mode; either "memory" or "file"
+     */
+    public String getStore() {
+        return store;
+    }
+
+    public ConfigProperties setStore(String store) {
+        this.store = store;
+        return this;
+    }
+
+    /**
+     * @return directory holding the persistent data
+     */
+    public Path getDataDirectory() {
+        return dataDirectory;
+    }
+
+    public ConfigProperties setDataDirectory(Path dataDirectory) {
+        this.dataDirectory = dataDirectory;
+        return this;
+    }
+
+    /**
+     * @return task pool configuration per harvester, using the (kebab-case) harvester class name as key
+     */
+    public Map<String, PoolProperties> getPools() {
+        return pools;
+    }
+
+    public ConfigProperties setPools(Map<String, PoolProperties> pools) {
+        this.pools = pools;
+        return this;
+    }
+
+    /**
+     * @return maximum total size of the cached source downloads
+     */
+    public DataSize getDownloadCacheSize() {
+        return downloadCacheSize;
+    }
+
+    public ConfigProperties setDownloadCacheSize(DataSize downloadCacheSize) {
+        this.downloadCacheSize = downloadCacheSize;
+        return this;
+    }
+
+    /**
+     * @return true if cached source downloads are kept in the data directory across restarts
+     */
+    public boolean isPersistDownloads() {
+        return persistDownloads;
+    }
+
+    public ConfigProperties setPersistDownloads(boolean persistDownloads) {
+        this.persistDownloads = persistDownloads;
+        return this;
+    }
+
+    /**
+     * @return number of parallel license scanner processes per scan, or 0 to adapt to the available cores
+     */
+    public int getScanProcesses() {
+        return scanProcesses;
+    }
+
+    public ConfigProperties setScanProcesses(int scanProcesses) {
+        this.scanProcesses = scanProcesses;
+        return this;
+    }
+
+    /**
+     * @return (optional) directory with additional license reference texts, named by their SPDX identifier
+     */
+    public @NullOr Path getLicenseTexts() {
+        return licenseTexts;
+    }
+
+    public ConfigProperties setLicenseTexts(@NullOr Path licenseTexts) {
+        this.licenseTexts = licenseTexts;
+        return this;
+    }
+
+    /**
+     * Configuration of a bulkhead thread pool.
+     */
+    public static class PoolProperties {
+        private int threads = 2;
+        private int queueSize = Integer.MAX_VALUE;
+        private Rejection rejection = Rejection.DISCARD;
+        private Mode mode = Mode.PLATFORM;
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public PoolProperties setThreads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        public PoolProperties setQueueSize(int queueSize) {
+            this.queueSize = queueSize;
+            return this;
+        }
+
+        public Rejection getRejection() {
+            return rejection;
+        }
+
+        public PoolProperties setRejection(Rejection rejection) {
+            this.rejection = rejection;
+            return this;
+        }
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public PoolProperties setMode(Mode mode) {
+            this.mode = mode;
+            return this;
+        }
+    }
+
+    /**
+     * Handling of tasks that do not fit in the queue of a pool.
+     */
+    public enum Rejection {
+        CALLER_RUNS, // Execute the task in the submitting thread (opt-in, as this defeats the bulkhead)
+        DISCARD // Drop the task
+    }
+
+    /**
+     * Type of threads executing the tasks of a pool.
+     */
+    public enum Mode {
+        PLATFORM, // Fixed pool of operating system threads
+        VIRTUAL // Virtual thread per task (if supported by the Java runtime) for I/O-bound tasks
+    }
 }
@@ -5,7 +5,11 @@
 
 package com.philips.research.bombase.controller;
 
+import com.philips.research.bombase.core.ImportRejectedException;
+import com.philips.research.bombase.core.InvalidCursorException;
+import com.philips.research.bombase.core.UnknownImportException;
 import com.philips.research.bombase.core.UnknownPackageException;
+import com.philips.research.bombase.core.scanner.UnknownScanException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
@@ -38,6 +42,42 @@ public class ControllerExceptionHandler {
         return Map.of("reason", e.getMessage());
     }
 
+    /**
+     * Handles requested but unknown (or expired) import jobs.
+     */
+    @ResponseStatus(code = HttpStatus.NOT_FOUND)
+    @ExceptionHandler(UnknownImportException.class)
+    public Map<String, String> handleUnknownImportException(UnknownImportException e) {
+        return Map.of("reason", e.getMessage());
+    }
+
+    /**
+     * Handles requested but unknown (or expired) scan jobs.
+     */
+    @ResponseStatus(code = HttpStatus.NOT_FOUND)
+    @ExceptionHandler(UnknownScanException.class)
+    public Map<String, String> handleUnknownScanException(UnknownScanException e) {
+        return Map.of("reason", e.getMessage());
+    }
+
+    /**
+     * Handles imports that cannot be accepted until pending imports have completed.
+     */
+    @ResponseStatus(code = HttpStatus.SERVICE_UNAVAILABLE)
+    @ExceptionHandler(ImportRejectedException.class)
+    public Map<String, String> handleImportRejectedException(ImportRejectedException e) {
+        return Map.of("reason", e.getMessage());
+    }
+
+    /**
+     * Handles malformed paging cursors.
+     */
+    @ResponseStatus(code = HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(InvalidCursorException.class)
+    public Map<String, String> handleInvalidCursorException(InvalidCursorException e) {
+        return Map.of("reason", e.getMessage());
+    }
+
     /**
      * Handles request parameter validation failures.
      *
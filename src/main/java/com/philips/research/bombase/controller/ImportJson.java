@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.controller;
+
+import com.philips.research.bombase.core.MetaService.ImportDto;
+import pl.tlinkowski.annotation.basic.NullOr;
+
+import java.util.List;
+import java.util.UUID;
+
+class ImportJson {
+    final UUID id;
+    final int total;
+    final int processed;
+    final int created;
+    final boolean done;
+    final @NullOr List<String> invalid;
+
+    ImportJson(ImportDto dto) {
+        this(dto, List.of());
+    }
+
+    ImportJson(ImportDto dto, List<String> invalid) {
+        this.id = dto.id;
+        this.total = dto.total;
+        this.processed = dto.processed;
+        this.created = dto.created;
+        this.done = dto.done;
+        this.invalid = invalid.isEmpty() ? null : invalid;
+    }
+}
@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.controller;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.philips.research.bombase.core.MetaService.PackageAttributesDto;
+
+import java.time.Instant;
+
+class PackageAttributesJson extends AttributesJson {
+    final String purl;
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    final Instant updated;
+
+    PackageAttributesJson(PackageAttributesDto dto) {
+        super(dto.attributes);
+        this.purl = dto.purl.canonicalize();
+        this.updated = dto.updated;
+    }
+}
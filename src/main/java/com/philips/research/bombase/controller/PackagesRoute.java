@@ -5,27 +5,45 @@
 
 package com.philips.research.bombase.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.packageurl.MalformedPackageURLException;
 import com.github.packageurl.PackageURL;
 import com.philips.research.bombase.core.MetaService;
+import com.philips.research.bombase.core.MetaService.PackageAttributesDto;
 import com.philips.research.bombase.core.UnknownPackageException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import pl.tlinkowski.annotation.basic.NullOr;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RestController
 @CrossOrigin(origins = "*")
 @RequestMapping("/packages")
 public class PackagesRoute {
     private final MetaService service;
+    private final ObjectMapper mapper;
 
-    PackagesRoute(MetaService service) {
+    PackagesRoute(MetaService service, ObjectMapper mapper) {
         this.service = service;
+        this.mapper = mapper;
     }
 
     @GetMapping("{purl}")
@@ -44,11 +62,13 @@ public class PackagesRoute {
     ResultJson<PackageJson> findPackages(@RequestParam(required = false) @NullOr String type,
                                          @RequestParam(required = false) @NullOr String ns,
                                          @RequestParam(required = false) @NullOr String name,
-                                         @RequestParam(required = false) @NullOr String version) {
-        final var found = (type == null && ns == null && name == null && version == null)
-                ? service.latestScans()
-                : service.search(orEmpty(type), orEmpty(ns), orEmpty(name), orEmpty(version));
-        return new ResultJson<>(PackageJson.fromDtoList(found));
+                                         @RequestParam(required = false) @NullOr String version,
+                                         @RequestParam(required = false) @NullOr String cursor,
+                                         @RequestParam(required = false, defaultValue = "100") int limit) {
+        final var page = (type == null && ns == null && name == null && version == null)
+                ? service.latestScans(cursor, limit)
+                : service.search(orEmpty(type), orEmpty(ns), orEmpty(name), orEmpty(version), cursor, limit);
+        return new ResultJson<>(PackageJson.fromDtoList(page.results), page.next);
     }
 
     private String orEmpty(@NullOr String string) {
@@ -62,6 +82,37 @@ public class PackagesRoute {
         return new AttributesJson(attributes);
     }
 
+    /**
+     * Streams the details of all requested (known) packages as newline-delimited JSON.
+     */
+    @PostMapping(path = "details", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    StreamingResponseBody getPackagesDetails(@RequestBody List<String> purls) {
+        final var pkgUrls = purls.stream().map(this::parsePurl).collect(Collectors.toList());
+        return ndjson(() -> service.getAllAttributes(pkgUrls));
+    }
+
+    /**
+     * Streams the details of all (matching) packages as newline-delimited JSON, most recently modified first.
+     */
+    @GetMapping(path = "export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    StreamingResponseBody exportPackages(@RequestParam(required = false) @NullOr String type,
+                                         @RequestParam(required = false) @NullOr Instant since) {
+        return ndjson(() -> service.exportPackages(type, since));
+    }
+
+    private StreamingResponseBody ndjson(Supplier<Stream<PackageAttributesDto>> supplier) {
+        return (out) -> {
+            final var writer = mapper.writerFor(PackageAttributesJson.class);
+            try (var stream = supplier.get()) {
+                final var iterator = stream.iterator();
+                while (iterator.hasNext()) {
+                    out.write(writer.writeValueAsBytes(new PackageAttributesJson(iterator.next())));
+                    out.write('\n');
+                }
+            }
+        };
+    }
+
     @PostMapping("{purl}/details")
     AttributesJson setPackageDetails(@PathVariable String purl, @RequestBody Map<String, Object> body) {
         final var pkgUrl = packageUrl(purl);
@@ -69,11 +120,79 @@ public class PackagesRoute {
         return new AttributesJson(attributes);
     }
 
+    @PostMapping(path = "import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    ImportJson importPackages(@RequestBody List<String> purls) {
+        final var importer = new Importer();
+        purls.forEach(importer::add);
+        return importer.start();
+    }
+
+    /**
+     * Imports a stream of newline-delimited Package URLs, which are either plain text,
+     * JSON strings, or JSON objects with a "purl" field.
+     */
+    @PostMapping(path = "import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    ImportJson importPackageStream(InputStream body) throws IOException {
+        final var importer = new Importer();
+        try (var reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+                if (!line.isEmpty()) {
+                    importer.add(parseLine(line));
+                }
+            }
+        }
+        return importer.start();
+    }
+
+    private String parseLine(String line) {
+        try {
+            if (line.startsWith("\"")) {
+                return mapper.readValue(line, String.class);
+            }
+            if (line.startsWith("{")) {
+                return mapper.readTree(line).path("purl").asText();
+            }
+        } catch (JsonProcessingException e) {
+            // Reported as invalid Package URL
+        }
+        return line;
+    }
+
+    @GetMapping("import/{id}")
+    ImportJson getImport(@PathVariable UUID id) {
+        return new ImportJson(service.getImport(id));
+    }
+
     private PackageURL packageUrl(String purl) {
+        return parsePurl(URLDecoder.decode(purl, StandardCharsets.UTF_8));
+    }
+
+    private PackageURL parsePurl(String purl) {
         try {
-            return new PackageURL(URLDecoder.decode(purl, StandardCharsets.UTF_8));
+            return new PackageURL(purl);
         } catch (MalformedPackageURLException e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid Package URL parameter: " + purl);
         }
     }
+
+    private class Importer {
+        private final List<PackageURL> purls = new ArrayList<>();
+        private final List<String> invalid = new ArrayList<>();
+
+        void add(String purl) {
+            try {
+                purls.add(new PackageURL(purl));
+            } catch (MalformedPackageURLException e) {
+                invalid.add(purl);
+            }
+        }
+
+        ImportJson start() {
+            return new ImportJson(service.importPackages(purls), invalid);
+        }
+    }
 }
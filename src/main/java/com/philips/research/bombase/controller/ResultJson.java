@@ -5,12 +5,20 @@
 
 package com.philips.research.bombase.controller;
 
+import pl.tlinkowski.annotation.basic.NullOr;
+
 import java.util.List;
 
 class ResultJson<T> {
     List<T> results;
+    @NullOr String next;
 
     public ResultJson(List<T> results) {
+        this(results, null);
+    }
+
+    public ResultJson(List<T> results, @NullOr String next) {
         this.results = results;
+        this.next = next;
     }
 }
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.controller;
+
+import com.philips.research.bombase.core.scanner.ScannerService.ScanJobDto;
+import pl.tlinkowski.annotation.basic.NullOr;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.UUID;
+
+class ScanJobJson {
+    final UUID id;
+    final URI location;
+    final String priority;
+    final String state;
+    final Instant created;
+    final @NullOr Instant started;
+    final @NullOr Instant finished;
+
+    ScanJobJson(ScanJobDto dto) {
+        this.id = dto.id;
+        this.location = dto.location;
+        this.priority = dto.priority.name().toLowerCase();
+        this.state = dto.state.name().toLowerCase();
+        this.created = dto.created;
+        this.started = dto.started;
+        this.finished = dto.finished;
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.controller;
+
+import com.philips.research.bombase.core.scanner.ScannerService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@RestController
+@CrossOrigin(origins = "*")
+@RequestMapping("/scans")
+public class ScansRoute {
+    private final ScannerService service;
+
+    ScansRoute(ScannerService service) {
+        this.service = service;
+    }
+
+    @GetMapping()
+    List<ScanJobJson> getScans() {
+        return service.getScans().stream()
+                .map(ScanJobJson::new)
+                .collect(Collectors.toList());
+    }
+
+    @GetMapping("{id}")
+    ScanJobJson getScan(@PathVariable UUID id) {
+        return new ScanJobJson(service.getScan(id));
+    }
+
+    @DeleteMapping("{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    void cancelScan(@PathVariable UUID id) {
+        service.cancelScan(id);
+    }
+}
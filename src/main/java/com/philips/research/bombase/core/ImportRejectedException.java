@@ -0,0 +1,14 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core;
+
+import com.philips.research.bombase.core.meta.MetaException;
+
+public class ImportRejectedException extends MetaException {
+    public ImportRejectedException(int count) {
+        super("Import of " + count + " packages was rejected because too many imports are pending");
+    }
+}
@@ -11,6 +11,8 @@ import pl.tlinkowski.annotation.basic.NullOr;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * API for managing the storage of metadata.
@@ -32,6 +34,23 @@ public interface MetaService {
      */
     Map<String, AttributeDto> getAttributes(PackageURL purl);
 
+    /**
+     * Reads all stored metadata for many packages at once.
+     *
+     * @param purls package ids
+     * @return (lazy) stream of the metadata per known package, in order of the requested packages
+     */
+    Stream<PackageAttributesDto> getAllAttributes(List<PackageURL> purls);
+
+    /**
+     * Exports the metadata of all (matching) packages.
+     *
+     * @param type  (optional) exact type of the packages
+     * @param since (optional) minimal modification timestamp of the packages
+     * @return lazy stream of the metadata per package, most recently modified first
+     */
+    Stream<PackageAttributesDto> exportPackages(@NullOr String type, @NullOr Instant since);
+
     /**
      * Updates selected attributes of a package.
      * Listeners are automatically notified of changes.
@@ -44,9 +63,30 @@ public interface MetaService {
     Map<String, AttributeDto> setAttributes(PackageURL purl, Map<String, Object> values);
 
     /**
+     * Creates all indicated packages in the background.
+     *
+     * @param purls package ids
+     * @return progress of the created import job
+     * @throws ImportRejectedException if too many imports are pending
+     */
+    ImportDto importPackages(List<PackageURL> purls);
+
+    /**
+     * Reads the progress of a recent import job.
+     *
+     * @param id import job id
+     * @return progress of the import job
+     * @throws UnknownImportException if the import job does not exist (anymore)
+     */
+    ImportDto getImport(UUID id);
+
+    /**
+     * @param cursor (optional) position returned with the previous page
+     * @param limit  maximum number of packages in the page
      * @return Most recent scans
+     * @throws InvalidCursorException if the cursor is malformed
      */
-    List<PackageDto> latestScans();
+    PageDto latestScans(@NullOr String cursor, int limit);
 
     /**
      * Searches for a package by its Package URL elements.
@@ -55,15 +95,37 @@ public interface MetaService {
      * @param namespace (part of) the namespace
      * @param name      (part of) the name
      * @param version   (part of) the version
-     * @return top most recently modified matching packages
+     * @param cursor    (optional) position returned with the previous page
+     * @param limit     maximum number of packages in the page
+     * @return page of matching packages, most recently modified first
+     * @throws InvalidCursorException if the cursor is malformed
      */
-    List<PackageDto> search(String type, String namespace, String name, String version);
+    PageDto search(String type, String namespace, String name, String version, @NullOr String cursor, int limit);
 
     class PackageDto {
         public PackageURL purl;
         public Instant updated;
     }
 
+    class PageDto {
+        public List<PackageDto> results;
+        public @NullOr String next;
+    }
+
+    class ImportDto {
+        public UUID id;
+        public int total;
+        public int processed;
+        public int created;
+        public boolean done;
+    }
+
+    class PackageAttributesDto {
+        public PackageURL purl;
+        public Instant updated;
+        public Map<String, AttributeDto> attributes;
+    }
+
     class AttributeDto {
         public @NullOr Object value;
         public int score;
@@ -0,0 +1,16 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core;
+
+import com.philips.research.bombase.core.meta.MetaException;
+
+import java.util.UUID;
+
+public class UnknownImportException extends MetaException {
+    public UnknownImportException(UUID id) {
+        super("Import '" + id + "' is unknown");
+    }
+}
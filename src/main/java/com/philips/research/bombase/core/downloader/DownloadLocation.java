@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.downloader;
+
+import java.net.URI;
+import java.util.Locale;
+
+/**
+ * Normalization of download locations, so different notations of the same source share a single key.
+ */
+public final class DownloadLocation {
+    private static final String GIT_PREFIX = "git+";
+    private static final String GIT_SUFFIX = ".git";
+
+    private DownloadLocation() {
+    }
+
+    /**
+     * Normalizes the notation of a download location:
+     * <ul>
+     *     <li>the scheme and host are lower case, and default ports are removed;</li>
+     *     <li>plain HTTP is treated as HTTPS;</li>
+     *     <li>git repositories have no trailing ".git" or slash.</li>
+     * </ul>
+     *
+     * @param location download location using the format {@code <vcs_tool>+<transport>://<host_name>[/<path_to_repository>][@<revision_tag_or_branch>][#<sub_path>]}
+     * @return location identifying the same source (but not necessarily downloadable)
+     */
+    public static URI normalize(URI location) {
+        if (location.getScheme() == null || location.getRawAuthority() == null) {
+            return location;
+        }
+        var scheme = location.getScheme().toLowerCase(Locale.ROOT);
+        var authority = normalizeAuthority(location.getRawAuthority(), scheme);
+        if (scheme.endsWith("http")) {
+            scheme = scheme + 's';
+        }
+        var path = (location.getRawPath() != null) ? location.getRawPath() : "";
+        if (scheme.startsWith(GIT_PREFIX)) {
+            path = normalizeRepository(path);
+        }
+        final var query = (location.getRawQuery() != null) ? '?' + location.getRawQuery() : "";
+        final var fragment = (location.getRawFragment() != null) ? '#' + location.getRawFragment() : "";
+        return URI.create(scheme + "://" + authority + path + query + fragment);
+    }
+
+    private static String normalizeAuthority(String authority, String scheme) {
+        final var pos = authority.lastIndexOf('@');
+        final var userInfo = authority.substring(0, pos + 1);
+        var host = authority.substring(pos + 1).toLowerCase(Locale.ROOT);
+        if ((scheme.endsWith("http") && host.endsWith(":80")) || (scheme.endsWith("https") && host.endsWith(":443"))) {
+            host = host.substring(0, host.lastIndexOf(':'));
+        }
+        return userInfo + host;
+    }
+
+    private static String normalizeRepository(String path) {
+        final var pos = path.indexOf('@');
+        var repository = (pos >= 0) ? path.substring(0, pos) : path;
+        final var version = (pos >= 0) ? path.substring(pos) : "";
+        while (repository.endsWith("/")) {
+            repository = repository.substring(0, repository.length() - 1);
+        }
+        if (repository.endsWith(GIT_SUFFIX)) {
+            repository = repository.substring(0, repository.length() - GIT_SUFFIX.length());
+        }
+        return repository + version;
+    }
+}
@@ -12,34 +12,39 @@ import org.slf4j.LoggerFactory;
 import pl.tlinkowski.annotation.basic.NullOr;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
 import java.net.URI;
-import java.net.URLDecoder;
-import java.nio.channels.Channels;
-import java.nio.channels.FileChannel;
-import java.nio.channels.ReadableByteChannel;
-import java.nio.charset.StandardCharsets;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.Duration;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * Download handler for file and internet resources.
+ * Common archive formats are extracted while downloading, and other formats are
+ * extracted after download by the "extractcode" command line tool.
  */
 class AnonymousVcsHandler implements VcsHandler {
     private static final Logger LOG = LoggerFactory.getLogger(AnonymousVcsHandler.class);
     private static final Duration MAX_EXTRACT_DURATION = Duration.ofMinutes(10);
 
+    private final ArchiveExtractor extractor = new ArchiveExtractor();
+    private final HttpClient client = HttpDownloadStream.createClient();
+
     @Override
     public Path download(Path directory, URI location) {
         validateDirectory(directory);
-        copyFile(target(directory, location), location);
-        final var path = extractArchives(directory);
+        final var filename = filenameFor(location);
+        final Path path;
+        if (ArchiveExtractor.isSupported(filename)) {
+            path = extractFile(directory.resolve(filename), location);
+        } else {
+            copyFile(target(directory, location), location);
+            path = extractArchives(directory);
+        }
         final @NullOr String fragment = location.getFragment();
 
         return (fragment != null) ? path.resolve(fragment) : path;
@@ -59,11 +64,21 @@ class AnonymousVcsHandler implements VcsHandler {
 
     private void copyFile(File target, URI fromUri) {
         LOG.info("Download file from {} to {}", fromUri, target);
-        try (FileOutputStream out = new FileOutputStream(target)) {
-            ReadableByteChannel inChannel = Channels.newChannel(openStream(fromUri));
-            FileChannel outChannel = out.getChannel();
-            outChannel.transferFrom(inChannel, 0, Long.MAX_VALUE);
-            inChannel.close();
+        try (InputStream stream = openStream(fromUri)) {
+            Files.copy(stream, target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new DownloadException("File download failed from " + fromUri, e);
+        }
+    }
+
+    /**
+     * Extracts the archive into a directory named after the archive, like "extractcode" does.
+     */
+    private Path extractFile(Path target, URI fromUri) {
+        LOG.info("Download and extract archive from {} to {}", fromUri, target);
+        try (InputStream stream = openStream(fromUri)) {
+            extractor.extract(stream, target.getFileName().toString(), target);
+            return target;
         } catch (IOException e) {
             throw new DownloadException("File download failed from " + fromUri, e);
         }
@@ -92,41 +107,10 @@ class AnonymousVcsHandler implements VcsHandler {
                 .toPath();
     }
 
-    /**
-     * Workaround to redirect from HTTP to HTTPS.
-     *
-     * @see <a href="https://stackoverflow.com/questions/1884230/httpurlconnection-doesnt-follow-redirect-from-http-to-https">This explanation</a>
-     */
     private InputStream openStream(URI uri) throws IOException {
-        final var connection = uri.toURL().openConnection();
-        if (!(connection instanceof HttpURLConnection)) {
-            return connection.getInputStream();
+        if ("http".equals(uri.getScheme()) || "https".equals(uri.getScheme())) {
+            return HttpDownloadStream.open(client, uri);
         }
-
-        Map<URI, Integer> visited = new HashMap<>();
-        var urlConnection = (HttpURLConnection) connection;
-        while (true) {
-            final int times = visited.compute(uri, (key, count) -> count == null ? 1 : count + 1);
-            if (times > 3) {
-                throw new IOException("Aborted: Stuck in redirect loop");
-            }
-
-            urlConnection.setConnectTimeout(15000);
-            urlConnection.setReadTimeout(15000);
-            urlConnection.setInstanceFollowRedirects(false);   // We handle redirects ourselves
-            urlConnection.setRequestProperty("User-Agent", "Mozilla/5.0...");
-            if (urlConnection.getResponseCode() != 301) {
-                return urlConnection.getInputStream();
-            }
-
-            uri = redirection(uri, urlConnection);
-            urlConnection = (HttpURLConnection) uri.toURL().openConnection();
-        }
-    }
-
-    private URI redirection(URI uri, HttpURLConnection conn) {
-        final var location = conn.getHeaderField("Location");
-        final var url = URLDecoder.decode(location, StandardCharsets.UTF_8);
-        return uri.resolve(url);
+        return uri.toURL().openStream();
     }
 }
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.downloader.domain;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.tlinkowski.annotation.basic.NullOr;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Streaming extractor for the common (zip and tar) package archive formats.
+ * <p>
+ * Extracts the entries while reading the archive, so the archive itself is never stored.
+ * Only regular files and directories are extracted; links and special files are skipped.
+ */
+class ArchiveExtractor {
+    private static final Logger LOG = LoggerFactory.getLogger(ArchiveExtractor.class);
+    private static final List<String> ZIP_EXTENSIONS = List.of(".zip", ".jar", ".whl", ".nupkg");
+    private static final List<String> TAR_GZ_EXTENSIONS = List.of(".tar.gz", ".tgz");
+    private static final String TAR_EXTENSION = ".tar";
+    private static final int BLOCK_SIZE = 512;
+
+    /**
+     * @return true if the file name indicates a supported archive format
+     */
+    static boolean isSupported(String filename) {
+        return ZIP_EXTENSIONS.stream().anyMatch(ext -> hasExtension(filename, ext))
+                || TAR_GZ_EXTENSIONS.stream().anyMatch(ext -> hasExtension(filename, ext))
+                || hasExtension(filename, TAR_EXTENSION);
+    }
+
+    private static boolean hasExtension(String filename, String extension) {
+        return filename.toLowerCase(Locale.ROOT).endsWith(extension);
+    }
+
+    /**
+     * Extracts all entries of an archive.
+     *
+     * @param stream   archive contents
+     * @param filename name of the archive, indicating its format
+     * @param target   directory to extract the entries to
+     */
+    void extract(InputStream stream, String filename, Path target) throws IOException {
+        Files.createDirectories(target);
+        final var buffered = new BufferedInputStream(stream);
+        if (ZIP_EXTENSIONS.stream().anyMatch(ext -> hasExtension(filename, ext))) {
+            extractZip(buffered, target);
+        } else if (hasExtension(filename, TAR_EXTENSION)) {
+            extractTar(buffered, target);
+        } else if (TAR_GZ_EXTENSIONS.stream().anyMatch(ext -> hasExtension(filename, ext))) {
+            extractTar(new GZIPInputStream(buffered, 64 * 1024), target);
+        } else {
+            throw new IllegalArgumentException("Not a supported archive: " + filename);
+        }
+    }
+
+    private void extractZip(InputStream stream, Path target) throws IOException {
+        final var zip = new ZipInputStream(stream);
+        var entry = zip.getNextEntry();
+        while (entry != null) {
+            final var path = resolve(target, entry.getName());
+            if (entry.isDirectory()) {
+                Files.createDirectories(path);
+            } else {
+                Files.createDirectories(path.getParent());
+                Files.copy(zip, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            entry = zip.getNextEntry();
+        }
+    }
+
+    private void extractTar(InputStream stream, Path target) throws IOException {
+        final var header = new byte[BLOCK_SIZE];
+        @NullOr String longName = null;
+        while (readBlock(stream, header) && !isEmpty(header)) {
+            final var type = (char) header[156];
+            final var size = size(header);
+            switch (type) {
+                case 'L': // GNU long name of the next entry
+                    longName = trimmed(stream.readNBytes((int) size));
+                    skipPadding(stream, size);
+                    continue;
+                case 'x': // PAX extended header of the next entry
+                    final @NullOr String path = paxPath(stream.readNBytes((int) size));
+                    longName = (path != null) ? path : longName;
+                    skipPadding(stream, size);
+                    continue;
+                case '0':
+                case '\0':
+                case '5':
+                    final var name = (longName != null) ? longName : name(header);
+                    final var file = resolve(target, name);
+                    if (type == '5' || name.endsWith("/")) {
+                        Files.createDirectories(file);
+                    } else {
+                        write(stream, file, size);
+                    }
+                    break;
+                default:
+                    LOG.debug("Skipped archive entry of type '{}'", type);
+                    skipFully(stream, size);
+            }
+            skipPadding(stream, size);
+            longName = null;
+        }
+    }
+
+    private boolean readBlock(InputStream stream, byte[] block) throws IOException {
+        final var count = stream.readNBytes(block, 0, BLOCK_SIZE);
+        if (count == 0) {
+            return false;
+        }
+        if (count < BLOCK_SIZE) {
+            throw new EOFException("Truncated archive");
+        }
+        return true;
+    }
+
+    private boolean isEmpty(byte[] block) {
+        for (var b : block) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String name(byte[] header) {
+        final var name = string(header, 0, 100);
+        final var isUstar = string(header, 257, 5).equals("ustar");
+        final var prefix = isUstar ? string(header, 345, 155) : "";
+        return prefix.isEmpty() ? name : prefix + '/' + name;
+    }
+
+    private long size(byte[] header) {
+        if ((header[124] & 0x80) != 0) {
+            // Base-256 encoding for large files
+            long size = 0;
+            for (int i = 125; i < 136; i++) {
+                size = (size << 8) | (header[i] & 0xFF);
+            }
+            return size;
+        }
+        final var octal = string(header, 124, 12).trim();
+        return octal.isEmpty() ? 0 : Long.parseLong(octal, 8);
+    }
+
+    private String string(byte[] buffer, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && buffer[end] != 0) {
+            end++;
+        }
+        return new String(buffer, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    private String trimmed(byte[] bytes) {
+        return string(bytes, 0, bytes.length);
+    }
+
+    private @NullOr String paxPath(byte[] bytes) {
+        // Records have the format "<length> <key>=<value>\n"
+        final var records = new String(bytes, StandardCharsets.UTF_8);
+        for (var record : records.split("\n")) {
+            final var space = record.indexOf(' ');
+            if (space >= 0 && record.startsWith("path=", space + 1)) {
+                return record.substring(space + 1 + "path=".length());
+            }
+        }
+        return null;
+    }
+
+    private void skipPadding(InputStream stream, long size) throws IOException {
+        final var remainder = size % BLOCK_SIZE;
+        if (remainder != 0) {
+            skipFully(stream, BLOCK_SIZE - remainder);
+        }
+    }
+
+    private void skipFully(InputStream stream, long count) throws IOException {
+        long remaining = count;
+        while (remaining > 0) {
+            final var skipped = stream.skip(remaining);
+            if (skipped <= 0) {
+                if (stream.read() < 0) {
+                    throw new EOFException("Truncated archive");
+                }
+                remaining--;
+            } else {
+                remaining -= skipped;
+            }
+        }
+    }
+
+    /**
+     * Resolves an entry name within the target directory, rejecting names that escape from it.
+     */
+    private Path resolve(Path target, String name) throws IOException {
+        final var path = target.resolve(name).normalize();
+        if (!path.startsWith(target)) {
+            throw new IOException("Archive entry '" + name + "' is outside the target directory");
+        }
+        return path;
+    }
+
+    private void write(InputStream stream, Path file, long size) throws IOException {
+        Files.createDirectories(file.getParent());
+        try (OutputStream out = Files.newOutputStream(file)) {
+            final var buffer = new byte[8192];
+            long remaining = size;
+            while (remaining > 0) {
+                final var count = stream.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (count < 0) {
+                    throw new EOFException("Truncated archive entry " + file);
+                }
+                out.write(buffer, 0, count);
+                remaining -= count;
+            }
+        }
+    }
+}
@@ -6,47 +6,181 @@
 package com.philips.research.bombase.core.downloader.domain;
 
 import com.philips.research.bombase.core.downloader.DownloadException;
+import com.philips.research.bombase.core.downloader.DownloadLocation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.FileSystemUtils;
 import pl.tlinkowski.annotation.basic.NullOr;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
  * Cache for the source code of packages.
  * <p>
  * Avoids downloading the same VCS archive multiple times if various paths
- * of the same archive are accessed sequentially.
+ * of the same archive are accessed sequentially or in parallel.
+ * Entries are looked up by (normalized) location without a global lock, and each location
+ * is downloaded only once while concurrent claims wait for that download.
+ * Unused entries are evicted least recently used first, as soon as either the
+ * number of entries or the total size of the downloaded files exceeds its maximum.
+ * <p>
+ * Every entry downloads into its own directory, so an entry that is disposed never
+ * touches the files of a later entry for the same location.
+ * A persistent cache lists all completed downloads with their original source and directory in an index file,
+ * so the downloads are reused after a restart. Restored downloads are only checked when they are claimed.
  */
 class DownloadCache {
     private static final Logger LOG = LoggerFactory.getLogger(DownloadCache.class);
+    private static final String INDEX_FILE = "index.properties";
 
-    private final Object lock = new Object();
     private final Downloader downloader;
     private final Path workDirectory;
-    private final List<CacheEntry> cache = new ArrayList<>();
+    private final boolean persistent;
+    private final Object indexLock = new Object();
+    private final Map<URI, CacheEntry> cache = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
     private final int cacheSize;
+    private final long maxBytes;
 
     DownloadCache(Downloader downloader, Path workDirectory, int maxEntries) {
+        this(downloader, workDirectory, maxEntries, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param maxEntries maximum number of cached downloads
+     * @param maxBytes   high-water mark for the total size of the cached downloads
+     */
+    DownloadCache(Downloader downloader, Path workDirectory, int maxEntries, long maxBytes) {
+        this(downloader, createTempDirectory(workDirectory), maxEntries, maxBytes, false);
+    }
+
+    private DownloadCache(Downloader downloader, Path workDirectory, int maxEntries, long maxBytes, boolean persistent) {
         this.downloader = downloader;
+        this.workDirectory = workDirectory;
         this.cacheSize = maxEntries;
+        this.maxBytes = maxBytes;
+        this.persistent = persistent;
+        LOG.info("Cache directory is " + workDirectory);
+    }
+
+    /**
+     * Creates a cache that survives a restart.
+     *
+     * @param directory  (stable) directory holding the cached downloads
+     * @param maxEntries maximum number of cached downloads
+     * @param maxBytes   high-water mark for the total size of the cached downloads
+     */
+    static DownloadCache persistent(Downloader downloader, Path directory, int maxEntries, long maxBytes) {
         try {
-            this.workDirectory = Files.createTempDirectory(workDirectory, "bombase-");
-            LOG.info("Cache directory is " + workDirectory);
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new DownloadException("Failed to create the cache directory", e);
+        }
+        final var cache = new DownloadCache(downloader, directory, maxEntries, maxBytes, true);
+        cache.restore();
+        return cache;
+    }
+
+    private static Path createTempDirectory(Path parent) {
+        try {
+            return Files.createTempDirectory(parent, "bombase-");
         } catch (IOException e) {
             throw new DownloadException("Failed to create a working directory", e);
         }
     }
 
+    private void restore() {
+        final var index = new Properties();
+        final var file = workDirectory.resolve(INDEX_FILE);
+        if (Files.exists(file)) {
+            try (var reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                index.load(reader);
+            } catch (IOException | IllegalArgumentException e) {
+                LOG.warn("Ignored unreadable cache index {}", file);
+            }
+        }
+        index.forEach((key, value) -> restoreEntry((String) key, (String) value));
+        removeOrphans();
+        LOG.info("Restored {} cached downloads ({} bytes)", cache.size(), bytes.get());
+        cleanup();
+    }
+
+    private void restoreEntry(String location, String value) {
+        try {
+            final var parts = value.split(" ", 3);
+            final var path = Path.of(parts[2]);
+            final var root = workDirectory.resolve(path).normalize();
+            if (path.isAbsolute() || !root.startsWith(workDirectory) || root.equals(workDirectory)) {
+                throw new IllegalArgumentException("Download outside the cache directory");
+            }
+            final var entry = new CacheEntry(URI.create(location), URI.create(parts[1]), workDirectory.resolve(path.getName(0)));
+            entry.size = Long.parseLong(parts[0]);
+            entry.root = root;
+            bytes.addAndGet(entry.size);
+            cache.put(entry.location, entry);
+        } catch (RuntimeException e) {
+            LOG.warn("Ignored invalid cache index entry for {}", location);
+        }
+    }
+
+    private void removeOrphans() {
+        final var stores = cache.values().stream().map(entry -> entry.store).collect(Collectors.toSet());
+        try (var files = Files.list(workDirectory)) {
+            files.filter(Files::isDirectory)
+                    .filter(dir -> !stores.contains(dir))
+                    .forEach(dir -> {
+                        try {
+                            FileSystemUtils.deleteRecursively(dir);
+                        } catch (IOException e) {
+                            LOG.warn("Could not remove orphaned cache directory {}", dir);
+                        }
+                    });
+        } catch (IOException e) {
+            LOG.warn("Could not list the cache directory {}", workDirectory);
+        }
+    }
+
+    private void saveIndex() {
+        if (!persistent) {
+            return;
+        }
+        synchronized (indexLock) {
+            final var index = new Properties();
+            cache.values().forEach(entry -> entry.indexValue().ifPresent(value -> index.setProperty(entry.location.toString(), value)));
+            final var file = workDirectory.resolve(INDEX_FILE);
+            final var temp = workDirectory.resolve(INDEX_FILE + ".tmp");
+            try {
+                try (var writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    index.store(writer, "Download cache index");
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                LOG.warn("Failed to write the cache index {}", file);
+            }
+        }
+    }
+
     /**
      * Obtains a cache entry with the package source files.
      *
@@ -54,35 +188,88 @@ class DownloadCache {
      * @return root directory of the package source files
      */
     Path obtain(URI location) {
-        synchronized (lock) {
-            URI baseLocation = stripDirectoryPath(location);
-
-            cleanup();
-            final var entry = findOrCreateEntry(baseLocation);
-            entry.claim();
+        final var source = sourceOf(location);
+        final var hit = new AtomicBoolean(true);
+        final var entry = cache.compute(DownloadLocation.normalize(source), (key, existing) -> {
+            final var claimed = (existing != null) ? existing
+                    : new CacheEntry(key, source, workDirectory.resolve(UUID.randomUUID().toString()));
+            hit.set(existing != null);
+            claimed.claim();
+            return claimed;
+        });
+        (hit.get() ? hits : misses).incrementAndGet();
+        try {
             return entry.getRoot();
+        } finally {
+            cleanup();
         }
     }
 
+    /**
+     * @return number of claims that found an existing entry
+     */
+    long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of claims that created a new entry
+     */
+    long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return total size of the cached downloads in bytes
+     */
+    long getBytes() {
+        return bytes.get();
+    }
+
+    /**
+     * @return number of cached downloads
+     */
+    int getEntries() {
+        return cache.size();
+    }
+
+    private boolean isFull() {
+        return cache.size() > cacheSize || bytes.get() > maxBytes;
+    }
+
     private void cleanup() {
-        final var dispose = cache.stream()
-                .filter(entry -> !entry.isUsed())
-                .limit(Math.max(0, cache.size() - cacheSize))
-                .collect(Collectors.toList());
-        for (var entry : dispose) {
-            entry.dispose();
-            cache.remove(entry);
+        if (!isFull() || !evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            final var candidates = cache.values().stream()
+                    .filter(entry -> !entry.isUsed())
+                    .sorted(Comparator.comparingLong(entry -> entry.lastUsed))
+                    .collect(Collectors.toList());
+            for (var entry : candidates) {
+                if (!isFull()) {
+                    break;
+                }
+                evict(entry);
+            }
+        } finally {
+            evicting.set(false);
         }
     }
 
-    private CacheEntry findOrCreateEntry(URI location) {
-        final var entry = cache.stream()
-                .filter(e -> e.location.equals(location))
-                .findFirst()
-                .orElseGet(() -> new CacheEntry(location));
-        cache.remove(entry);
-        cache.add(entry);
-        return entry;
+    private void evict(CacheEntry entry) {
+        final var removed = new AtomicBoolean();
+        cache.computeIfPresent(entry.location, (key, existing) -> {
+            if (existing == entry && !entry.isUsed()) {
+                removed.set(true);
+                return null;
+            }
+            return existing;
+        });
+        if (removed.get()) {
+            entry.dispose();
+            saveIndex();
+        }
     }
 
     /**
@@ -91,15 +278,19 @@ class DownloadCache {
      * @param location VCS URL
      */
     void release(URI location) {
-        final var baseLocation = stripDirectoryPath(location);
-        synchronized (lock) {
-            cache.stream()
-                    .filter(entry -> entry.location.equals(baseLocation))
-                    .findFirst()
-                    .ifPresent(CacheEntry::release);
+        final @NullOr CacheEntry entry = cache.get(DownloadLocation.normalize(sourceOf(location)));
+        if (entry != null) {
+            entry.release();
         }
     }
 
+    /**
+     * Shares the download between all sub paths, unless the download only contains the sub path.
+     */
+    private URI sourceOf(URI location) {
+        return downloader.isSparse(location) ? location : stripDirectoryPath(location);
+    }
+
     private URI stripDirectoryPath(URI location) {
         try {
             return new URI(location.getScheme(), location.getRawSchemeSpecificPart(), null);
@@ -109,6 +300,10 @@ class DownloadCache {
     }
 
     void shutdown() {
+        if (persistent) {
+            saveIndex();
+            return;
+        }
         try {
             LOG.info("Cleaning up the cache directory");
             FileSystemUtils.deleteRecursively(workDirectory);
@@ -119,49 +314,108 @@ class DownloadCache {
 
     private class CacheEntry {
         private final URI location;
+        private final URI source;
         private final Path store;
-        private int usage = 0;
-        private @NullOr Path root;
+        private final AtomicInteger usage = new AtomicInteger();
+        private volatile long lastUsed;
+        private volatile long size;
+        private volatile @NullOr Path root;
+        private boolean validated;
+        private @NullOr RuntimeException failure;
 
-        CacheEntry(URI location) {
+        /**
+         * @param location (normalized) key of the entry
+         * @param source   location to download the sources from
+         * @param store    directory exclusively used by this entry
+         */
+        CacheEntry(URI location, URI source, Path store) {
             LOG.info("Create cache for {}", location);
             this.location = location;
-            store = workDirectory.resolve(UUID.randomUUID().toString());
-            if (!store.toFile().mkdir()) {
-                throw new IllegalStateException("Failed to create cache directory " + store);
-            }
+            this.source = source;
+            this.store = store;
         }
 
+        /**
+         * Downloads the sources on first access, while concurrent callers wait for the result.
+         */
         synchronized Path getRoot() {
+            if (failure != null) {
+                throw failure;
+            }
             try {
+                validate();
                 if (root == null) {
-                    root = downloader.download(store, location);
+                    prepareStore();
+                    root = downloader.download(store, source);
+                    size = sizeOf(store);
+                    bytes.addAndGet(size);
+                    validated = true;
+                    LOG.info("Cached {} bytes for {}", size, location);
+                    saveIndex();
                 }
                 return root;
-            } catch (Exception e) {
-                synchronized (lock) {
-                    cache.remove(this);
-                    dispose();
-                }
+            } catch (RuntimeException e) {
+                failure = e;
+                cache.remove(location, this);
+                dispose();
                 throw e;
             }
         }
 
-        synchronized boolean isUsed() {
-            return usage > 0;
+        private void validate() {
+            if (validated || root == null) {
+                return;
+            }
+            validated = true;
+            if (!Files.exists(root)) {
+                LOG.info("Cached download for {} is missing", location);
+                bytes.addAndGet(-size);
+                size = 0;
+                root = null;
+            }
+        }
+
+        private void prepareStore() {
+            try {
+                FileSystemUtils.deleteRecursively(store);
+                Files.createDirectories(store);
+            } catch (IOException e) {
+                throw new DownloadException("Failed to create cache directory " + store, e);
+            }
+        }
+
+        Optional<String> indexValue() {
+            final @NullOr Path path = root;
+            return Optional.ofNullable(path).map(p -> size + " " + source + " " + workDirectory.relativize(p));
         }
 
-        synchronized void claim() {
-            usage++;
-            LOG.info("Claim #{} of cache for {}", usage, location);
+        boolean isUsed() {
+            return usage.get() > 0;
         }
 
-        synchronized void release() {
-            LOG.info("Release #{} of cache for {}", usage, location);
-            usage--;
+        void claim() {
+            lastUsed = clock.incrementAndGet();
+            LOG.info("Claim #{} of cache for {}", usage.incrementAndGet(), location);
+        }
+
+        void release() {
+            LOG.info("Release #{} of cache for {}", usage.getAndDecrement(), location);
+        }
+
+        private long sizeOf(Path directory) {
+            try (var files = Files.walk(directory)) {
+                return files.filter(Files::isRegularFile)
+                        .mapToLong(file -> file.toFile().length())
+                        .sum();
+            } catch (IOException | UncheckedIOException e) {
+                LOG.warn("Could not measure the size of cache directory {}", directory);
+                return 0;
+            }
         }
 
-        void dispose() {
+        synchronized void dispose() {
+            bytes.addAndGet(-size);
+            size = 0;
             try {
                 LOG.info("Dispose cache for {}", location);
                 FileSystemUtils.deleteRecursively(store);
@@ -5,7 +5,13 @@
 
 package com.philips.research.bombase.core.downloader.domain;
 
+import com.philips.research.bombase.ConfigProperties;
 import com.philips.research.bombase.core.downloader.DownloadService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PreDestroy;
@@ -14,18 +20,33 @@ import java.nio.file.Path;
 import java.util.function.Function;
 
 @Service
-public class DownloadInteractor implements DownloadService {
+public class DownloadInteractor implements DownloadService, MeterBinder {
+    private static final String METRIC_PREFIX = "bombase.download.cache";
     private static final Path CACHE_DIRECTORY = Path.of(System.getProperty("java.io.tmpdir"));
     private static final int CACHE_SIZE = 100;
+    private static final String DOWNLOADS_DIRECTORY = "downloads";
+    private static final String MIRRORS_DIRECTORY = "mirrors";
 
     private final Downloader downloader;
+    private final GitVcsHandler git;
     private final DownloadCache cache;
 
     public DownloadInteractor() {
+        this(new ConfigProperties());
+    }
+
+    @Autowired
+    public DownloadInteractor(ConfigProperties config) {
+        git = config.isPersistDownloads()
+                ? new GitVcsHandler(config.getDataDirectory().resolve(MIRRORS_DIRECTORY))
+                : new GitVcsHandler();
         downloader = new Downloader()
                 .register("", new AnonymousVcsHandler())
-                .register("git", new GitVcsHandler());
-        cache = new DownloadCache(downloader, CACHE_DIRECTORY, CACHE_SIZE);
+                .register("git", git);
+        final var maxBytes = config.getDownloadCacheSize().toBytes();
+        cache = config.isPersistDownloads()
+                ? DownloadCache.persistent(downloader, config.getDataDirectory().resolve(DOWNLOADS_DIRECTORY), CACHE_SIZE, maxBytes)
+                : new DownloadCache(downloader, CACHE_DIRECTORY, CACHE_SIZE, maxBytes);
     }
 
     @Override
@@ -38,8 +59,37 @@ public class DownloadInteractor implements DownloadService {
         }
     }
 
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(METRIC_PREFIX + ".requests", cache, DownloadCache::getHits)
+                .description("Claims of the download cache")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".requests", cache, DownloadCache::getMisses)
+                .description("Claims of the download cache")
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".hit.ratio", cache, DownloadInteractor::hitRatio)
+                .description("Fraction of the download cache claims that found a cached download")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".size", cache, DownloadCache::getBytes)
+                .description("Total size of the cached downloads")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".entries", cache, DownloadCache::getEntries)
+                .description("Number of cached downloads")
+                .register(registry);
+    }
+
+    private static double hitRatio(DownloadCache cache) {
+        final var hits = cache.getHits();
+        final var total = hits + cache.getMisses();
+        return (total > 0) ? (double) hits / total : 0.0;
+    }
+
     @PreDestroy
     void destroy() {
         cache.shutdown();
+        git.shutdown();
     }
 }
@@ -48,10 +48,16 @@ class Downloader {
         return handler.download(directory, uri);
     }
 
+    /**
+     * @return true if downloading the location yields only its sub path
+     */
+    boolean isSparse(URI location) {
+        final var handler = registry.get(toolOf(location));
+        return handler != null && handler.isSparse();
+    }
+
     private VcsHandler validHandler(URI location) {
-        final var scheme = location.getScheme();
-        final var pos = scheme.indexOf('+');
-        final var tool = (pos >= 0) ? scheme.substring(0, pos) : "";
+        final var tool = toolOf(location);
 
         final var handler = registry.get(tool);
         if (handler == null) {
@@ -60,6 +66,12 @@ class Downloader {
         return handler;
     }
 
+    private String toolOf(URI location) {
+        final var scheme = location.getScheme();
+        final var pos = scheme.indexOf('+');
+        return (pos >= 0) ? scheme.substring(0, pos) : "";
+    }
+
     private URI downloadUri(URI location) {
         final var pos = location.getScheme().indexOf('+');
         if (pos >= 0) {
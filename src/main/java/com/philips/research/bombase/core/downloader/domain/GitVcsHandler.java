@@ -6,33 +6,109 @@
 package com.philips.research.bombase.core.downloader.domain;
 
 import com.philips.research.bombase.core.downloader.DownloadException;
+import com.philips.research.bombase.core.support.Digests;
 import com.philips.research.bombase.core.support.ShellCommand;
 import com.philips.research.bombase.core.support.ShellException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.util.FileSystemUtils;
+import pl.tlinkowski.annotation.basic.NullOr;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
  * GIT version control downloader.
  * Expects command line "git" to be installed.
+ * <p>
+ * Every repository has a local bare mirror, into which only the reference of each requested
+ * version is fetched. The reference is resolved from a single (cached) listing of the
+ * references of the repository, trying the common tag naming conventions for the version.
+ * Checkouts share the objects of the mirror, so checking out multiple versions of a
+ * repository transfers their common history only once.
+ * <p>
+ * If the server supports it, the mirror holds only the history (without file contents).
+ * Only the files of a checked out revision are fetched into the mirror, where they are reused by
+ * later checkouts. A checkout of a sub path is sparse and fetches only the files of that sub path.
  */
 class GitVcsHandler implements VcsHandler {
     public static final Logger LOG = LoggerFactory.getLogger(GitVcsHandler.class);
+    private static final Path TEMP_DIRECTORY = Path.of(System.getProperty("java.io.tmpdir"));
+    private static final Duration CHECKOUT_TIMEOUT = Duration.ofMinutes(5);
+    private static final Duration MIRROR_TIMEOUT = Duration.ofMinutes(15);
+    private static final Duration REFS_EXPIRY = Duration.ofMinutes(10);
+    private static final String TAG_PREFIX = "refs/tags/";
+    private static final String BRANCH_PREFIX = "refs/heads/";
+    private static final int MAX_FETCHED_OBJECTS = 1000;
 
-    private final ShellCommand git = new ShellCommand("git").setTimeout(Duration.ofMinutes(5));
+    private final Path mirrorDirectory;
+    private final boolean temporary;
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+    private final Map<String, RemoteRefs> remotes = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a handler that keeps its mirrors in a temporary directory until shutdown.
+     */
+    GitVcsHandler() {
+        this(TEMP_DIRECTORY.resolve("bombase-mirrors-" + UUID.randomUUID()), true);
+    }
+
+    /**
+     * @param mirrorDirectory (stable) directory holding the bare mirrors of all repositories
+     */
+    GitVcsHandler(Path mirrorDirectory) {
+        this(mirrorDirectory, false);
+    }
+
+    /**
+     * @param temporary removes the mirror directory on shutdown
+     */
+    GitVcsHandler(Path mirrorDirectory, boolean temporary) {
+        this.mirrorDirectory = mirrorDirectory;
+        this.temporary = temporary;
+    }
 
     @Override
     public Path download(Path directory, URI location) {
-        git.setDirectory(directory.toFile());
+        final @NullOr String subPath = location.getFragment();
+        final var root = (subPath != null) ? directory.resolve(subPath).normalize() : directory;
+        if (!root.startsWith(directory)) {
+            throw new DownloadException("Sub path '" + subPath + "' is outside the repository");
+        }
 
-        checkout(directory, repositoryFrom(location), versionFrom(location));
+        checkout(directory, repositoryFrom(location), versionFrom(location), subPath);
 
-        return directory;
+        return root;
+    }
+
+    @Override
+    public boolean isSparse() {
+        return true;
+    }
+
+    /**
+     * Removes the mirrors if they are kept in a temporary directory.
+     */
+    void shutdown() {
+        if (temporary) {
+            LOG.info("Removing the repository mirrors");
+            deleteQuietly(mirrorDirectory);
+        }
     }
 
     private String repositoryFrom(URI location) {
@@ -58,51 +134,310 @@ class GitVcsHandler implements VcsHandler {
         return (pos >= 0) ? raw.substring(pos + 1) : "";
     }
 
-    private void checkout(Path target, String repository, String version) {
-        if (version.isBlank()) {
-            checkoutDefaultBranch(target, repository);
-        } else {
-            checkoutVersion(target, repository, version);
+    private void checkout(Path target, String repository, String version, @NullOr String subPath) {
+        final var mirror = mirrorDirectory.resolve(Digests.sha256Hex(repository) + ".git");
+        final Revision revision;
+        synchronized (locks.computeIfAbsent(repository, (key) -> new Object())) {
+            revision = resolve(mirror, repository, version);
+            fetchContents(mirror, repository, revision, subPath);
+        }
+        try {
+            LOG.info("Checkout {} from {} to {}", revision, repository, target);
+            final var git = git(target).execute("clone", "--shared", "--no-checkout", mirror, target);
+            // Fetch any file contents still missing from the mirror directly from the repository
+            git.execute("config", "remote.origin.url", repository)
+                    .execute("config", "remote.origin.promisor", "true")
+                    .execute("config", "remote.origin.partialCloneFilter", "blob:none")
+                    .execute("config", "core.repositoryFormatVersion", "1")
+                    .execute("config", "extensions.partialClone", "origin");
+            if (subPath != null) {
+                git.execute("sparse-checkout", "set", "--no-cone", '/' + subPath);
+            }
+            git.execute("checkout", "--detach", revision.local);
+        } catch (ShellException e) {
+            throw new DownloadException("Checkout of " + revision + " failed", e);
+        }
+    }
+
+    /**
+     * Resolves the version to a revision in the mirror, fetching only the matching reference into the mirror.
+     * Tags and full commit hashes already in the mirror are resolved without accessing the repository.
+     * Because an abbreviated commit hash can look like a version (e.g. "2019"), it is only used if no
+     * branch or tag of the repository matches the version.
+     */
+    private Revision resolve(Path mirror, String repository, String version) {
+        final var names = tagNames(repository, version);
+        if (!version.isBlank() && Files.isDirectory(mirror)) {
+            final @NullOr Revision local = findLocal(mirror, names, version);
+            if (local != null) {
+                return local;
+            }
+        }
+        final @NullOr Revision remote = findRemote(repository, names, version);
+        createMirror(mirror, repository);
+        if (remote != null) {
+            return fetch(mirror, repository, remote);
+        }
+        if (isCommitHash(version)) {
+            final @NullOr Revision commit = hasCommit(mirror, version)
+                    ? Revision.of(version)
+                    : fetchCommit(mirror, repository, version);
+            if (commit != null) {
+                return commit;
+            }
+        }
+        throw new DownloadException("Checkout of version '" + version + "' failed: no matching branch, tag, or commit in " + repository);
+    }
+
+    /**
+     * Lists the names a version is tagged with by common conventions, in order of preference.
+     */
+    private List<String> tagNames(String repository, String version) {
+        final var name = repository.replaceAll("(\\.git)?/*$", "").replaceAll(".*[/:]", "");
+        return List.of(version, 'v' + version, "release-" + version, "release/" + version, name + '-' + version);
+    }
+
+    private boolean isCommitHash(String version) {
+        return version.matches("[0-9a-fA-F]{4,40}");
+    }
+
+    private boolean isFullCommitHash(String version) {
+        return version.matches("[0-9a-fA-F]{40}");
+    }
+
+    private @NullOr Revision findLocal(Path mirror, List<String> names, String version) {
+        try {
+            final var tags = Set.copyOf(git(mirror).output("for-each-ref", "--format=%(refname)", "refs/tags"));
+            for (var name : names) {
+                if (tags.contains(TAG_PREFIX + name)) {
+                    return Revision.of(TAG_PREFIX + name);
+                }
+            }
+            if (isFullCommitHash(version) && hasCommit(mirror, version)) {
+                return Revision.of(version);
+            }
+        } catch (ShellException e) {
+            LOG.warn("Could not read the references of mirror {}", mirror);
+        }
+        return null;
+    }
+
+    private boolean hasCommit(Path mirror, String hash) {
+        try {
+            git(mirror).execute("rev-parse", "--verify", "--quiet", hash + "^{commit}");
+            return true;
+        } catch (ShellException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Finds the version in the (cached) references of the repository, and lists the references
+     * again if the version is not found in the cached references.
+     */
+    private @NullOr Revision findRemote(String repository, List<String> names, String version) {
+        final @NullOr RemoteRefs cached = remotes.get(repository);
+        if (cached != null && !cached.isExpired()) {
+            final @NullOr Revision revision = cached.find(names, version);
+            if (revision != null) {
+                return revision;
+            }
         }
+        final var refs = listRemote(repository);
+        remotes.values().removeIf(RemoteRefs::isExpired);
+        remotes.put(repository, refs);
+        return refs.find(names, version);
     }
 
-    private void checkoutDefaultBranch(Path target, String repository) {
+    private RemoteRefs listRemote(String repository) {
         try {
-            LOG.info("Checkout default branch from {} to {}", repository, target);
-            git.execute("clone", "--depth=1", repository, target);
+            LOG.info("Listing references of {}", repository);
+            final var lines = git(Path.of(".")).setTimeout(MIRROR_TIMEOUT)
+                    .output("ls-remote", "--symref", repository, "HEAD", "refs/heads/*", "refs/tags/*");
+            return new RemoteRefs(lines);
         } catch (ShellException e) {
-            throw new DownloadException("Checkout of default branch failed", e);
+            throw new DownloadException("Checkout failed to list the references of " + repository, e);
         }
     }
 
-    private void checkoutVersion(Path target, String repository, String version) {
+    private void createMirror(Path mirror, String repository) {
+        if (Files.isDirectory(mirror)) {
+            return;
+        }
+        final var temp = mirror.resolveSibling(mirror.getFileName() + ".tmp");
         try {
-            checkoutBranchOrTag(target, repository, version, 'v' + version);
-        } catch (DownloadException e) {
-            LOG.info("Checkout by version branch or tag failed; attempting checkout by commit");
-            checkoutCommit(target, repository, version);
+            Files.createDirectories(mirrorDirectory);
+            FileSystemUtils.deleteRecursively(temp);
+            LOG.info("Creating mirror of {} in {}", repository, mirror);
+            git(mirrorDirectory).execute("init", "--quiet", "--bare", temp);
+            // Checkouts borrow objects from the mirror, so the mirror must never discard any
+            git(temp).execute("config", "remote.origin.url", repository)
+                    .execute("config", "remote.origin.fetch", "+refs/heads/*:refs/heads/*")
+                    .execute("config", "remote.origin.promisor", "true")
+                    .execute("config", "remote.origin.partialCloneFilter", "blob:none")
+                    .execute("config", "core.repositoryFormatVersion", "1")
+                    .execute("config", "extensions.partialClone", "origin")
+                    .execute("config", "gc.auto", "0");
+            Files.move(temp, mirror, StandardCopyOption.ATOMIC_MOVE);
+        } catch (ShellException | IOException e) {
+            deleteQuietly(temp);
+            throw new DownloadException("Checkout failed to mirror " + repository, e);
         }
     }
 
-    private void checkoutBranchOrTag(Path target, String repository, String... tags) {
-        for (var tag : tags) {
-            try {
-                git.execute("clone", "--depth=1", repository, "--branch", tag, target);
-                LOG.info("Checked out branch/tag '{}' from {} to {}", tag, repository, target);
+    private void deleteQuietly(Path directory) {
+        try {
+            FileSystemUtils.deleteRecursively(directory);
+        } catch (IOException e) {
+            LOG.warn("Could not remove {}", directory);
+        }
+    }
+
+    private Revision fetch(Path mirror, String repository, Revision revision) {
+        try {
+            LOG.info("Fetching {} from {} into mirror {}", revision, repository, mirror);
+            git(mirror).setTimeout(MIRROR_TIMEOUT)
+                    .execute("fetch", "--quiet", "origin", '+' + revision.mirror + ':' + revision.mirror);
+            return revision;
+        } catch (ShellException e) {
+            throw new DownloadException("Checkout of " + revision + " failed", e);
+        }
+    }
+
+    /**
+     * Fetches the file contents of the revision (limited to the sub path) that are missing from the mirror.
+     * A failure is not fatal, as the checkout can still fetch the missing contents from the repository.
+     */
+    private void fetchContents(Path mirror, String repository, Revision revision, @NullOr String subPath) {
+        final var list = new ArrayList<Object>(List.of("rev-list", "--objects", "--missing=print", "--no-walk", revision.mirror));
+        if (subPath != null) {
+            list.addAll(List.of("--", subPath));
+        }
+        try {
+            final var missing = git(mirror).output(list.toArray()).stream()
+                    .filter(line -> line.startsWith("?"))
+                    .map(line -> line.substring(1))
+                    .collect(Collectors.toList());
+            if (missing.isEmpty()) {
                 return;
-            } catch (ShellException e) {
-                LOG.info("Failed to checkout from branch or tag '{}'", tag);
             }
+            LOG.info("Fetching {} files of {} from {} into mirror {}", missing.size(), revision, repository, mirror);
+            for (int i = 0; i < missing.size(); i += MAX_FETCHED_OBJECTS) {
+                final var fetch = new ArrayList<Object>(List.of("fetch", "--quiet", "--no-tags", "--no-write-fetch-head",
+                        "--recurse-submodules=no", "--filter=blob:none", "origin"));
+                fetch.addAll(missing.subList(i, Math.min(i + MAX_FETCHED_OBJECTS, missing.size())));
+                git(mirror).setTimeout(MIRROR_TIMEOUT).execute(fetch.toArray());
+            }
+        } catch (ShellException e) {
+            LOG.warn("Could not fetch the files of {} into mirror {}", revision, mirror);
         }
-        throw new DownloadException("Failed to checkout by branch/tag");
     }
 
-    private void checkoutCommit(Path target, String repository, String commitHash) {
+    /**
+     * Fetches a full commit hash directly, or else all branches and tags to find the (abbreviated) commit.
+     */
+    private @NullOr Revision fetchCommit(Path mirror, String repository, String hash) {
+        final var git = git(mirror).setTimeout(MIRROR_TIMEOUT);
         try {
-            LOG.info("Checking out commit '{}' from {} to {}", commitHash, repository, target);
-            git.execute("clone", repository, target).execute("checkout", commitHash);
+            LOG.info("Fetching commit '{}' from {} into mirror {}", hash, repository, mirror);
+            if (hash.length() == 40) {
+                try {
+                    git.execute("fetch", "--quiet", "origin", hash);
+                } catch (ShellException e) {
+                    LOG.info("Repository does not support fetching a commit; fetching all branches and tags instead");
+                    git.execute("fetch", "--quiet", "--tags", "origin");
+                }
+            } else {
+                git.execute("fetch", "--quiet", "--tags", "origin");
+            }
         } catch (ShellException e) {
-            throw new DownloadException("Checkout by commit failed", e);
+            throw new DownloadException("Checkout of commit '" + hash + "' failed", e);
+        }
+        return hasCommit(mirror, hash) ? Revision.of(hash) : null;
+    }
+
+    private ShellCommand git(Path directory) {
+        return new ShellCommand("git").setDirectory(directory.toFile()).setTimeout(CHECKOUT_TIMEOUT);
+    }
+
+    /**
+     * Revision expressed as reference in the mirror and in the checkout cloned from the mirror.
+     */
+    private static class Revision {
+        final String description;
+        final String mirror;
+        final String local;
+
+        private Revision(String description, String mirror, String local) {
+            this.description = description;
+            this.mirror = mirror;
+            this.local = local;
+        }
+
+        /**
+         * @param reference full name of a tag or branch reference, or a commit hash
+         */
+        static Revision of(String reference) {
+            if (reference.startsWith(TAG_PREFIX)) {
+                return new Revision("tag '" + reference.substring(TAG_PREFIX.length()) + "'", reference, reference);
+            }
+            if (reference.startsWith(BRANCH_PREFIX)) {
+                final var name = reference.substring(BRANCH_PREFIX.length());
+                return new Revision("branch '" + name + "'", reference, "refs/remotes/origin/" + name);
+            }
+            return new Revision("commit '" + reference + "'", reference, reference);
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    /**
+     * Branch and tag references of a remote repository.
+     */
+    private static class RemoteRefs {
+        private final Instant expires = Instant.now().plus(REFS_EXPIRY);
+        private final Set<String> refs = new HashSet<>();
+        private @NullOr String head;
+
+        /**
+         * @param lines output of "ls-remote --symref"
+         */
+        RemoteRefs(List<String> lines) {
+            for (var line : lines) {
+                final var fields = line.split("\t");
+                if (fields.length < 2) {
+                    continue;
+                }
+                if (fields[0].startsWith("ref: ") && fields[1].equals("HEAD")) {
+                    head = fields[0].substring("ref: ".length());
+                } else {
+                    refs.add(fields[1]);
+                }
+            }
+        }
+
+        boolean isExpired() {
+            return Instant.now().isAfter(expires);
+        }
+
+        /**
+         * @return matching tag or branch, or the default branch if no version is provided
+         */
+        @NullOr Revision find(List<String> names, String version) {
+            if (version.isBlank()) {
+                return (head != null) ? Revision.of(head) : null;
+            }
+            for (var name : names) {
+                for (var ref : List.of(TAG_PREFIX + name, BRANCH_PREFIX + name)) {
+                    if (refs.contains(ref)) {
+                        return Revision.of(ref);
+                    }
+                }
+            }
+            return null;
         }
     }
 }
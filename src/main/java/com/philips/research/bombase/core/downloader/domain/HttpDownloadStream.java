@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.downloader.domain;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import pl.tlinkowski.annotation.basic.NullOr;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Input stream for a download by HTTP, which resumes the download by a range request if the connection fails.
+ * <p>
+ * Redirects are followed by the HTTP client. A resumed download is only accepted if the resource is unchanged.
+ * A watchdog aborts a read that receives no data within the inactivity timeout, so a stalled download is resumed
+ * instead of blocking its thread forever.
+ */
+class HttpDownloadStream extends InputStream {
+    private static final Logger LOG = LoggerFactory.getLogger(HttpDownloadStream.class);
+    private static final Duration RESPONSE_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration READ_TIMEOUT = Duration.ofSeconds(15);
+    private static final int MAX_RESUMES = 3;
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(watchdogThreadFactory());
+
+    private final HttpClient client;
+    private final URI uri;
+    private final @NullOr String validator;
+    private final boolean resumable;
+    private final long readTimeout;
+    private final ScheduledFuture<?> watchdog;
+    private volatile InputStream body;
+    private volatile long deadline;
+    private volatile boolean stalled;
+    private long position;
+    private int resumes;
+
+    private HttpDownloadStream(HttpClient client, HttpResponse<InputStream> response, Duration readTimeout) {
+        this.client = client;
+        this.uri = response.uri();
+        this.body = response.body();
+        final var headers = response.headers();
+        this.resumable = headers.firstValue("Accept-Ranges").map("bytes"::equalsIgnoreCase).orElse(false);
+        this.validator = headers.firstValue("ETag").or(() -> headers.firstValue("Last-Modified")).orElse(null);
+        this.readTimeout = readTimeout.toNanos();
+        final var interval = Math.max(1, readTimeout.toMillis() / 4);
+        this.watchdog = WATCHDOG.scheduleWithFixedDelay(this::abortStalledRead, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private static CustomizableThreadFactory watchdogThreadFactory() {
+        final var factory = new CustomizableThreadFactory("download-watchdog-");
+        factory.setDaemon(true);
+        return factory;
+    }
+
+    /**
+     * Creates the shared client for all downloads, so connections are reused.
+     */
+    static HttpClient createClient() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(15))
+                .build();
+    }
+
+    /**
+     * Starts downloading the resource.
+     *
+     * @throws IOException if the resource is not available
+     */
+    static InputStream open(HttpClient client, URI uri) throws IOException {
+        return open(client, uri, READ_TIMEOUT);
+    }
+
+    /**
+     * @param readTimeout maximum duration of a read without receiving any data
+     */
+    static InputStream open(HttpClient client, URI uri, Duration readTimeout) throws IOException {
+        final var response = send(client, request(uri).build());
+        if (response.statusCode() / 100 != 2) {
+            response.body().close();
+            throw new IOException("Server responded with status " + response.statusCode());
+        }
+        return new HttpDownloadStream(client, response, readTimeout);
+    }
+
+    private static HttpRequest.Builder request(URI uri) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(RESPONSE_TIMEOUT)
+                .header("User-Agent", "Mozilla/5.0...");
+    }
+
+    private static HttpResponse<InputStream> send(HttpClient client, HttpRequest request) throws IOException {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Download was interrupted");
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        while (true) {
+            try {
+                final var value = guarded(body::read);
+                if (value >= 0) {
+                    position++;
+                }
+                return value;
+            } catch (IOException e) {
+                resume(stallOr(e));
+            }
+        }
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        while (true) {
+            try {
+                final var count = guarded(() -> body.read(buffer, offset, length));
+                if (count > 0) {
+                    position += count;
+                }
+                return count;
+            } catch (IOException e) {
+                resume(stallOr(e));
+            }
+        }
+    }
+
+    /**
+     * Performs a read of the body under supervision of the watchdog.
+     */
+    private int guarded(BodyRead read) throws IOException {
+        stalled = false;
+        deadline = System.nanoTime() + readTimeout;
+        try {
+            return read.read();
+        } finally {
+            deadline = 0;
+        }
+    }
+
+    /**
+     * Closes the body if a read is blocked beyond its deadline, which makes the read fail.
+     */
+    private void abortStalledRead() {
+        final var current = deadline;
+        if (current != 0 && System.nanoTime() - current > 0) {
+            stalled = true;
+            LOG.info("Aborting stalled download of {} at byte {}", uri, position);
+            closeQuietly();
+        }
+    }
+
+    private IOException stallOr(IOException e) {
+        if (!stalled) {
+            return e;
+        }
+        final var timeout = new IOException("No data received for " + Duration.ofNanos(readTimeout).toSeconds() + " seconds");
+        timeout.addSuppressed(e);
+        return timeout;
+    }
+
+    /**
+     * Continues the download from the current position.
+     *
+     * @param cause failure of the download
+     * @throws IOException (the cause) if the download cannot be resumed
+     */
+    private void resume(IOException cause) throws IOException {
+        if (!resumable || resumes >= MAX_RESUMES || cause instanceof InterruptedIOException) {
+            throw cause;
+        }
+        resumes++;
+        LOG.info("Resuming download of {} from byte {}", uri, position);
+        closeQuietly();
+        final var request = request(uri).header("Range", "bytes=" + position + '-');
+        if (validator != null) {
+            request.header("If-Range", validator);
+        }
+        final HttpResponse<InputStream> response;
+        try {
+            response = send(client, request.build());
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+            throw cause;
+        }
+        body = response.body();
+        if (response.statusCode() != 206) {
+            closeQuietly();
+            throw cause;
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            body.close();
+        } catch (IOException e) {
+            // Ignored, as the stream is abandoned anyway
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchdog.cancel(false);
+        body.close();
+    }
+
+    private interface BodyRead {
+        int read() throws IOException;
+    }
+}
@@ -20,4 +20,11 @@ interface VcsHandler {
      * @return base directory of the download result
      */
     Path download(Path directory, URI location);
+
+    /**
+     * @return true if only the sub path of a location is downloaded, so every sub path requires a separate download
+     */
+    default boolean isSparse() {
+        return false;
+    }
 }
@@ -11,6 +11,7 @@ import com.philips.research.bombase.core.meta.registry.Field;
 import com.philips.research.bombase.core.meta.registry.MetaRegistry;
 import com.philips.research.bombase.core.meta.registry.PackageAttributeEditor;
 import com.philips.research.bombase.core.scanner.ScannerService;
+import com.philips.research.bombase.core.scanner.ScannerService.Priority;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -63,9 +64,12 @@ public class LicenseCleaner implements MetaRegistry.PackageListener {
                 .orElse(url);
     }
 
+    /**
+     * License texts are small, so their scans are queued ahead of the (batch) source code scans.
+     */
     private Optional<String> scanLicense(String url) {
         try {
-            final var licenses = scanner.scanLicenses(URI.create(url));
+            final var licenses = scanner.scanLicenses(URI.create(url), Priority.INTERACTIVE);
             return !licenses.isEmpty() ? Optional.of(licenses.get(0)) : Optional.empty();
         } catch (Exception e) {
             LOG.warn("Scanning a license from {} failed", url, e);
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta;
+
+import com.github.packageurl.MalformedPackageURLException;
+import com.github.packageurl.PackageURL;
+import com.philips.research.bombase.core.InvalidCursorException;
+import com.philips.research.bombase.core.meta.registry.Package;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in the anti-chronological ordering of packages, used to continue listing packages after
+ * the last package of a previous page.
+ * <p>
+ * Packages are ordered on their modification timestamp, with the canonical Package URL as tie-breaker.
+ */
+public final class Cursor {
+    private static final char SEPARATOR = ' ';
+
+    private final Instant updated;
+    private final PackageURL purl;
+
+    public Cursor(Instant updated, PackageURL purl) {
+        this.updated = updated;
+        this.purl = purl;
+    }
+
+    /**
+     * @return position of the provided package
+     */
+    public static Cursor of(Package pkg) {
+        return new Cursor(pkg.getLastUpdated(), pkg.getPurl());
+    }
+
+    /**
+     * Decodes the opaque representation of a cursor.
+     *
+     * @throws InvalidCursorException if the cursor cannot be decoded
+     */
+    public static Cursor decode(String cursor) {
+        try {
+            final var string = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            final var pos = string.indexOf(SEPARATOR);
+            if (pos < 0) {
+                throw new InvalidCursorException(cursor);
+            }
+            return new Cursor(Instant.parse(string.substring(0, pos)), new PackageURL(string.substring(pos + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | MalformedPackageURLException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
+    public Instant getUpdated() {
+        return updated;
+    }
+
+    public PackageURL getPurl() {
+        return purl;
+    }
+
+    /**
+     * @return opaque (URL-safe) representation of the cursor
+     */
+    public String encode() {
+        final var string = updated.toString() + SEPARATOR + purl.canonicalize();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(string.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -6,10 +6,14 @@
 package com.philips.research.bombase.core.meta;
 
 import com.philips.research.bombase.core.MetaService.AttributeDto;
+import com.philips.research.bombase.core.MetaService.PackageAttributesDto;
 import com.philips.research.bombase.core.MetaService.PackageDto;
 import com.philips.research.bombase.core.meta.registry.AttributeValue;
 import com.philips.research.bombase.core.meta.registry.Package;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public abstract class DtoMapper {
     static PackageDto toBaseDto(Package pkg) {
         final var dto = new PackageDto();
@@ -18,6 +22,20 @@ public abstract class DtoMapper {
         return dto;
     }
 
+    static PackageAttributesDto toAttributesDto(Package pkg) {
+        final var dto = new PackageAttributesDto();
+        dto.purl = pkg.getPurl();
+        dto.updated = pkg.getLastUpdated();
+        dto.attributes = toAttributeDtos(pkg);
+        return dto;
+    }
+
+    static Map<String, AttributeDto> toAttributeDtos(Package pkg) {
+        final var values = new HashMap<String, AttributeDto>();
+        pkg.getAttributes().forEach(attr -> values.put(attr.getField().name().toLowerCase(), toDto(attr)));
+        return values;
+    }
+
     static AttributeDto toDto(AttributeValue<?> value) {
         final var dto = new AttributeDto();
         dto.score = value.getScore();
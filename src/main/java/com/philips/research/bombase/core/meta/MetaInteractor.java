@@ -7,13 +7,17 @@ package com.philips.research.bombase.core.meta;
 
 import com.github.packageurl.PackageURL;
 import com.philips.research.bombase.ConfigProperties;
+import com.philips.research.bombase.core.ImportRejectedException;
 import com.philips.research.bombase.core.MetaService;
+import com.philips.research.bombase.core.UnknownImportException;
 import com.philips.research.bombase.core.UnknownPackageException;
 import com.philips.research.bombase.core.clearlydefined.domain.ClearlyDefinedHarvester;
 import com.philips.research.bombase.core.license_cleaner.domain.LicenseCleaner;
 import com.philips.research.bombase.core.maven.domain.MavenHarvester;
 import com.philips.research.bombase.core.meta.registry.Field;
 import com.philips.research.bombase.core.meta.registry.MetaRegistry;
+import com.philips.research.bombase.core.meta.registry.Package;
+import com.philips.research.bombase.core.meta.registry.RunnerPools;
 import com.philips.research.bombase.core.meta.registry.Trust;
 import com.philips.research.bombase.core.npm.domain.NpmHarvester;
 import com.philips.research.bombase.core.nuget.domain.NugetHarvester;
@@ -27,24 +31,47 @@ import org.springframework.stereotype.Service;
 import pl.tlinkowski.annotation.basic.NullOr;
 
 import jakarta.annotation.PostConstruct;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class MetaInteractor implements MetaService {
     private static final Logger LOG = LoggerFactory.getLogger(MetaInteractor.class);
+    private static final String IMPORT_POOL = "Import";
+    private static final int MAX_IMPORT_JOBS = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
 
     private final MetaRegistry registry;
     private final MetaStore store;
+    private final Executor importExecutor;
+    private final Map<UUID, ImportJob> imports = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, ImportJob> eldest) {
+            return size() > MAX_IMPORT_JOBS;
+        }
+    };
     @SuppressWarnings("SpringJavaAutowiredFieldsWarningInspection")
     @Autowired
     private ApplicationContext context;
 
-    public MetaInteractor(MetaRegistry registry, MetaStore store) {
+    MetaInteractor(MetaRegistry registry, MetaStore store) {
+        this(registry, store, Runnable::run);
+    }
+
+    @Autowired
+    public MetaInteractor(MetaRegistry registry, MetaStore store, RunnerPools pools) {
+        this(registry, store, pools.get(IMPORT_POOL));
+    }
+
+    MetaInteractor(MetaRegistry registry, MetaStore store, Executor importExecutor) {
         this.registry = registry;
         this.store = store;
+        this.importExecutor = importExecutor;
     }
 
     @PostConstruct
@@ -76,11 +103,23 @@ public class MetaInteractor implements MetaService {
 
     @Override
     public Map<String, AttributeDto> getAttributes(PackageURL purl) {
-        final var values = new HashMap<String, AttributeDto>();
-        registry.getAttributeValues(purl)
-                .orElseThrow(() -> new UnknownPackageException(purl))
-                .forEach((field, attribute) -> values.put(field.name().toLowerCase(), DtoMapper.toDto(attribute)));
-        return values;
+        return store.findPackage(purl)
+                .map(DtoMapper::toAttributeDtos)
+                .orElseThrow(() -> new UnknownPackageException(purl));
+    }
+
+    @Override
+    public Stream<PackageAttributesDto> getAllAttributes(List<PackageURL> purls) {
+        return purls.stream()
+                .map(store::findPackage)
+                .flatMap(Optional::stream)
+                .map(DtoMapper::toAttributesDto);
+    }
+
+    @Override
+    public Stream<PackageAttributesDto> exportPackages(@NullOr String type, @NullOr Instant since) {
+        return store.streamPackages(type, since)
+                .map(DtoMapper::toAttributesDto);
     }
 
     @Override
@@ -93,16 +132,102 @@ public class MetaInteractor implements MetaService {
     }
 
     @Override
-    public List<PackageDto> latestScans() {
-        return store.latestScans(100).stream()
-                .map(DtoMapper::toBaseDto)
-                .collect(Collectors.toList());
+    public ImportDto importPackages(List<PackageURL> purls) {
+        final var job = new ImportJob(purls.size());
+        synchronized (imports) {
+            imports.put(job.id, job);
+        }
+        LOG.info("Importing {} packages as job {}", purls.size(), job.id);
+        try {
+            importExecutor.execute(() -> runImport(job, purls));
+        } catch (RejectedExecutionException e) {
+            synchronized (imports) {
+                imports.remove(job.id);
+            }
+            LOG.warn("Rejected import job {}: {}", job.id, e.getMessage());
+            throw new ImportRejectedException(purls.size());
+        }
+        return job.toDto();
+    }
+
+    private void runImport(ImportJob job, List<PackageURL> purls) {
+        try {
+            for (var purl : purls) {
+                if (registry.createIfAbsent(purl)) {
+                    job.created.incrementAndGet();
+                }
+                job.processed.incrementAndGet();
+            }
+            LOG.info("Imported {} new packages from job {}", job.created, job.id);
+        } catch (Exception e) {
+            LOG.error("Import job {} failed", job.id, e);
+        } finally {
+            job.done = true;
+        }
+    }
+
+    @Override
+    public ImportDto getImport(UUID id) {
+        synchronized (imports) {
+            final @NullOr ImportJob job = imports.get(id);
+            if (job == null) {
+                throw new UnknownImportException(id);
+            }
+            return job.toDto();
+        }
+    }
+
+    @Override
+    public PageDto latestScans(@NullOr String cursor, int limit) {
+        final var size = pageSize(limit);
+        return toPage(store.latestScans(size + 1, decode(cursor)), size);
     }
 
     @Override
-    public List<PackageDto> search(String type, String namespace, String name, String version) {
-        return store.findPackages(type, namespace, name, version).stream()
-                .map(DtoMapper::toBaseDto)
+    public PageDto search(String type, String namespace, String name, String version, @NullOr String cursor, int limit) {
+        final var size = pageSize(limit);
+        return toPage(store.findPackages(type, namespace, name, version, size + 1, decode(cursor)), size);
+    }
+
+    private int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    private @NullOr Cursor decode(@NullOr String cursor) {
+        return (cursor != null && !cursor.isEmpty()) ? Cursor.decode(cursor) : null;
+    }
+
+    private PageDto toPage(List<MetaStore.Listing> listings, int size) {
+        final var page = new PageDto();
+        final var results = listings.subList(0, Math.min(size, listings.size()));
+        page.results = results.stream()
+                .map(listing -> DtoMapper.toBaseDto(listing.pkg))
                 .collect(Collectors.toList());
+        if (listings.size() > size) {
+            page.next = results.get(size - 1).position.encode();
+        }
+        return page;
+    }
+
+    private static class ImportJob {
+        final UUID id = UUID.randomUUID();
+        final int total;
+        final AtomicInteger processed = new AtomicInteger();
+        final AtomicInteger created = new AtomicInteger();
+        volatile boolean done;
+
+        ImportJob(int total) {
+            this.total = total;
+        }
+
+        ImportDto toDto() {
+            final var dto = new ImportDto();
+            dto.id = id;
+            dto.done = done;
+            dto.total = total;
+            dto.processed = processed.get();
+            dto.created = created.get();
+            return dto;
+        }
     }
 }
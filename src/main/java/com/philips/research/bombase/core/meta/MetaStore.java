@@ -9,9 +9,12 @@ import com.github.packageurl.PackageURL;
 import com.philips.research.bombase.core.meta.registry.Attribute;
 import com.philips.research.bombase.core.meta.registry.Field;
 import com.philips.research.bombase.core.meta.registry.Package;
+import pl.tlinkowski.annotation.basic.NullOr;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Persistence API for the metadata domain.
@@ -25,6 +28,14 @@ public interface MetaStore {
      */
     Package createPackage(PackageURL purl);
 
+    /**
+     * Atomically creates a new package, unless a package for the provided coordinates already exists.
+     *
+     * @param purl package id
+     * @return new persistent package instance, or empty if the package already existed
+     */
+    Optional<Package> createPackageIfAbsent(PackageURL purl);
+
     /**
      * Retrieves a package for the provided coordinates if one exists.
      *
@@ -33,13 +44,31 @@ public interface MetaStore {
      */
     Optional<Package> findPackage(PackageURL purl);
 
+    /**
+     * Notifies the store that the attributes or timestamp of a package were modified.
+     *
+     * @param pkg modified persistent package instance
+     */
+    void updatePackage(Package pkg);
+
     /**
      * Lists latest scanned packages in anti-chronological order.
      *
      * @param limit maximum number of packages to return
+     * @param after (optional) position after which to continue listing
      * @return list of packages, sorted on modification timestamp
      */
-    List<Package> latestScans(int limit);
+    List<Listing> latestScans(int limit, @NullOr Cursor after);
+
+    /**
+     * Walks all (matching) packages in anti-chronological order, without collecting them first.
+     * Packages that are modified during the walk may be skipped or returned twice.
+     *
+     * @param type  (optional) exact type of the packages
+     * @param since (optional) minimal modification timestamp of the packages
+     * @return lazy stream of packages, sorted on modification timestamp
+     */
+    Stream<Package> streamPackages(@NullOr String type, @NullOr Instant since);
 
     /**
      * Lists all versions of a package.
@@ -59,9 +88,26 @@ public interface MetaStore {
     Attribute createField(Package pkg, Field field);
 
     /**
-     * Find packages matching provided (parts of) parameters.
+     * Find packages matching provided (parts of) parameters in anti-chronological order.
      *
-     * @return search results
+     * @param limit maximum number of packages to return
+     * @param after (optional) position after which to continue listing
+     * @return search results, sorted on modification timestamp
      */
-    List<Package> findPackages(String type, String namespace, String name, String version);
+    List<Listing> findPackages(String type, String namespace, String name, String version, int limit, @NullOr Cursor after);
+
+    /**
+     * Package listed at its position in the anti-chronological ordering of packages.
+     * <p>
+     * The position is the one the package was ordered by, even if the package was modified since.
+     */
+    final class Listing {
+        public final Package pkg;
+        public final Cursor position;
+
+        public Listing(Package pkg, Cursor position) {
+            this.pkg = pkg;
+            this.position = position;
+        }
+    }
 }
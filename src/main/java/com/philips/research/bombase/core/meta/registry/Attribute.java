@@ -24,26 +24,37 @@ public class Attribute<T> implements AttributeValue<T> {
         this.field = field;
     }
 
+    /**
+     * Restores a persisted attribute.
+     */
+    public Attribute(Field field, int score, @NullOr T value, int altScore, @NullOr T altValue) {
+        this.field = field;
+        this.score = score;
+        this.value = field.validate(value);
+        this.altScore = altScore;
+        this.altValue = field.validate(altValue);
+    }
+
     public Field getField() {
         return this.field;
     }
 
-    public Optional<T> getValue() {
+    public synchronized Optional<T> getValue() {
         return Optional.ofNullable(value);
     }
 
     @Override
-    public int getScore() {
+    public synchronized int getScore() {
         return score;
     }
 
     @Override
-    public Optional<T> getAltValue() {
+    public synchronized Optional<T> getAltValue() {
         return Optional.ofNullable((altScore > 0) ? altValue : null);
     }
 
     @Override
-    public int getAltScore() {
+    public synchronized int getAltScore() {
         return altScore;
     }
 
@@ -54,7 +65,7 @@ public class Attribute<T> implements AttributeValue<T> {
      * @param value the new value
      * @return true if the main value was updated (which is independent from score updates or alt value changes)
      */
-    boolean setValue(Trust trust, @NullOr T value) {
+    synchronized boolean setValue(Trust trust, @NullOr T value) {
         int score = trust.getScore();
         if (value == null) {
             return false;
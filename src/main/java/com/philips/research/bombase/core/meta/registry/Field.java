@@ -37,6 +37,13 @@ public enum Field {
         this.typeClass = typeClass;
     }
 
+    /**
+     * @return class of the values held by this field
+     */
+    public Class<?> getType() {
+        return typeClass;
+    }
+
     public <T> @NullOr T validate(@NullOr T value) {
         if (value != null && !typeClass.isAssignableFrom(value.getClass())) {
             throw new MetaException("Field " + this + " cannot hold a value of type " + value.getClass());
@@ -58,20 +58,32 @@ public class MetaRegistry {
         cascadeListeners(editor);
     }
 
+    /**
+     * Creates a package if it does not exist yet.
+     *
+     * @param purl package id
+     * @return true if the package was created
+     */
+    public boolean createIfAbsent(PackageURL purl) {
+        return store.createPackageIfAbsent(purl)
+                .map(this::created)
+                .isPresent();
+    }
+
     private Package getOrCreatePackage(PackageURL purl) {
-        return store.findPackage(purl).orElseGet(() -> createPackage(purl));
+        return store.findPackage(purl).orElseGet(() -> created(store.createPackage(purl)));
     }
 
-    private Package createPackage(PackageURL purl) {
-        final var pkg = store.createPackage(purl);
-        LOG.info("Created new package {}", purl);
-        notifyListeners(purl, Set.of(), Map.of());
+    private Package created(Package pkg) {
+        LOG.info("Created new package {}", pkg.getPurl());
+        notifyListeners(pkg.getPurl(), Set.of(), Map.of());
         return pkg;
     }
 
     private void cascadeListeners(PackageAttributeEditor editor) {
         if (editor.isModified()) {
             final var modifiedFields = editor.getModifiedFields();
+            store.updatePackage(editor.getPackage());
             LOG.info("Updated {}: {}", editor.getPurl(), modifiedFields);
             notifyListeners(editor.getPurl(), modifiedFields, editor.getValues());
         } else {
@@ -83,7 +95,7 @@ public class MetaRegistry {
         listeners.forEach(l -> l.onUpdated(purl, modifiedFields, values)
                 .ifPresent(task -> {
                     LOG.info("Scheduled {} task for {}", nameFor(l), purl);
-                    runner.execute(purl, task, this::cascadeListeners);
+                    runner.execute(nameFor(l), purl, task, this::cascadeListeners);
                 }));
     }
 
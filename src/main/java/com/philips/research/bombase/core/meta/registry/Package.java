@@ -9,6 +9,7 @@ import com.github.packageurl.PackageURL;
 
 import java.time.Instant;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Stream;
@@ -16,10 +17,21 @@ import java.util.stream.Stream;
 public class Package {
     private final PackageURL purl;
     private final Set<Attribute<?>> attributes = new HashSet<>();
-    private Instant lastUpdated = Instant.now();
+    private volatile Instant lastUpdated;
 
     public Package(PackageURL purl) {
+        this(purl, Instant.now());
+    }
+
+    /**
+     * Restores a persisted package.
+     *
+     * @param purl        package id
+     * @param lastUpdated modification timestamp
+     */
+    public Package(PackageURL purl, Instant lastUpdated) {
         this.purl = purl;
+        this.lastUpdated = lastUpdated;
     }
 
     public PackageURL getPurl() {
@@ -50,7 +62,7 @@ public class Package {
                 .findFirst();
     }
 
-    public Stream<Attribute<?>> getAttributes() {
-        return attributes.stream();
+    public synchronized Stream<Attribute<?>> getAttributes() {
+        return List.copyOf(attributes).stream();
     }
 }
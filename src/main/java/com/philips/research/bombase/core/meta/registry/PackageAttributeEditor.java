@@ -29,6 +29,13 @@ public class PackageAttributeEditor {
         return pkg.getPurl();
     }
 
+    /**
+     * @return the edited package
+     */
+    Package getPackage() {
+        return pkg;
+    }
+
     /**
      * @return current value of the indicated field
      */
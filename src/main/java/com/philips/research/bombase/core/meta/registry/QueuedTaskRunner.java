@@ -9,34 +9,114 @@ import com.github.packageurl.PackageURL;
 import com.philips.research.bombase.core.meta.MetaStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import pl.tlinkowski.annotation.basic.NullOr;
 
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
+/**
+ * Executes package tasks in parallel on separate pools, while serializing all tasks for the same package.
+ */
 @Service
 public class QueuedTaskRunner {
     private static final Logger LOG = LoggerFactory.getLogger(QueuedTaskRunner.class);
 
     private final MetaStore store;
+    private final Function<String, Executor> pools;
+    private final Map<PackageURL, Queue<Job>> pending = new HashMap<>();
+
+    QueuedTaskRunner(MetaStore store) {
+        this(store, (pool) -> Runnable::run);
+    }
 
-    public QueuedTaskRunner(MetaStore store) {
+    @Autowired
+    public QueuedTaskRunner(MetaStore store, RunnerPools pools) {
+        this(store, pools::get);
+    }
+
+    QueuedTaskRunner(MetaStore store, Function<String, Executor> pools) {
         this.store = store;
+        this.pools = pools;
     }
 
     /**
-     * Queues tasks to run up to a configured maximum in parallel.
+     * Queues tasks to run up to the configured maximum of the indicated pool in parallel.
+     * Tasks for the same package are executed one after the other in order of submission.
      *
-     * @param task execution unit
+     * @param pool     name of the thread pool to execute the task
+     * @param purl     package to operate on
+     * @param task     execution unit
+     * @param callback invoked with the editor after the task completed
      */
-    @Async(RunnerConfig.NAME)
-    public
-    //@Transactional(propagation = Propagation.REQUIRES_NEW)
-    void execute(PackageURL purl, Consumer<PackageAttributeEditor> task, Consumer<PackageAttributeEditor> callback) {
-        store.findPackage(purl).ifPresent(pkg -> {
-            final var editor = new PackageAttributeEditor(pkg);
-            task.accept(editor);
-            callback.accept(editor);
-        });
+    public void execute(String pool, PackageURL purl, Consumer<PackageAttributeEditor> task, Consumer<PackageAttributeEditor> callback) {
+        final var job = new Job(pools.apply(pool), () -> run(purl, task, callback));
+        synchronized (pending) {
+            final @NullOr Queue<Job> queue = pending.get(purl);
+            if (queue != null) {
+                queue.add(job);
+                return;
+            }
+            pending.put(purl, new ArrayDeque<>());
+        }
+        submit(purl, job);
+    }
+
+    private void submit(PackageURL purl, Job job) {
+        try {
+            job.executor.execute(() -> {
+                try {
+                    job.runnable.run();
+                } finally {
+                    proceed(purl);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOG.warn("Dropped task for {}; the task queue is full", purl);
+            proceed(purl);
+        }
+    }
+
+    private void proceed(PackageURL purl) {
+        final @NullOr Job next;
+        synchronized (pending) {
+            final var queue = pending.get(purl);
+            next = queue.poll();
+            if (next == null) {
+                pending.remove(purl);
+            }
+        }
+        if (next != null) {
+            submit(purl, next);
+        }
+    }
+
+    private void run(PackageURL purl, Consumer<PackageAttributeEditor> task, Consumer<PackageAttributeEditor> callback) {
+        try {
+            store.findPackage(purl).ifPresent(pkg -> {
+                final var editor = new PackageAttributeEditor(pkg);
+                task.accept(editor);
+                callback.accept(editor);
+            });
+        } catch (Exception e) {
+            LOG.error("Task for {} failed", purl, e);
+        }
+    }
+
+    private static class Job {
+        final Executor executor;
+        final Runnable runnable;
+
+        Job(Executor executor, Runnable runnable) {
+            this.executor = executor;
+            this.runnable = runnable;
+        }
     }
 }
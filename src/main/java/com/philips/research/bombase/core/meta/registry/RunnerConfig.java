@@ -5,23 +5,16 @@
 
 package com.philips.research.bombase.core.meta.registry;
 
+import com.philips.research.bombase.ConfigProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
-
-import java.util.concurrent.Executor;
 
 @Configuration
 public class RunnerConfig {
     public static final String NAME = "TaskRunner";
 
-    @Bean(name = NAME)
-    public Executor threadPoolTaskExecutor() {
-        final var executor = new ThreadPoolTaskExecutor();
-        executor.setMaxPoolSize(4);
-        executor.setCorePoolSize(2);
-        executor.setThreadGroupName(NAME);
-        executor.setThreadNamePrefix("pool-");
-        return executor;
+    @Bean(name = NAME, destroyMethod = "shutdown")
+    public RunnerPools runnerPools(ConfigProperties properties) {
+        return new RunnerPools(properties.getPools());
     }
 }
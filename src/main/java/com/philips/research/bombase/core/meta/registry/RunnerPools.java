@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta.registry;
+
+import com.philips.research.bombase.ConfigProperties.Mode;
+import com.philips.research.bombase.ConfigProperties.PoolProperties;
+import com.philips.research.bombase.ConfigProperties.Rejection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import pl.tlinkowski.annotation.basic.NullOr;
+
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Separate ("bulkhead") thread pools per type of task.
+ * <p>
+ * Prevents slow tasks of one type from stalling the execution of all other tasks.
+ * I/O-bound tasks can instead run on virtual threads, where the configured number of threads limits
+ * the number of concurrent tasks. (As every harvester queries a single upstream host, this effectively
+ * limits the number of concurrent requests per host.)
+ */
+public class RunnerPools {
+    private static final Logger LOG = LoggerFactory.getLogger(RunnerPools.class);
+
+    private final Map<String, PoolProperties> config;
+    private final Map<String, ExecutorService> pools = new ConcurrentHashMap<>();
+
+    /**
+     * @param config pool configuration by kebab-case pool name
+     */
+    public RunnerPools(Map<String, PoolProperties> config) {
+        this.config = config;
+    }
+
+    /**
+     * Converts a CamelCase type name into the kebab-case name used for configuration.
+     */
+    static String kebabCase(String name) {
+        return name.replaceAll("([a-z0-9])([A-Z])", "$1-$2").toLowerCase();
+    }
+
+    /**
+     * @param name name of the task type
+     * @return the (shared) executor for the indicated task type
+     */
+    public Executor get(String name) {
+        return pools.computeIfAbsent(kebabCase(name), this::createPool);
+    }
+
+    private ExecutorService createPool(String name) {
+        final var properties = config.getOrDefault(name, new PoolProperties());
+        if (properties.getMode() == Mode.VIRTUAL) {
+            final @NullOr ThreadFactory factory = virtualThreadFactory(name + "-");
+            if (factory != null) {
+                LOG.info("Created {} virtual thread pool for {} concurrent tasks", name, properties.getThreads());
+                return new ThreadPerTaskExecutor(factory, properties.getThreads(), properties.getQueueSize(), properties.getRejection());
+            }
+            LOG.warn("Virtual threads are not supported by this Java runtime; using platform threads for {}", name);
+        }
+        return createPlatformPool(name, properties);
+    }
+
+    private ExecutorService createPlatformPool(String name, PoolProperties properties) {
+        LOG.info("Created {} pool with {} threads", name, properties.getThreads());
+        final var factory = new CustomizableThreadFactory(name + "-");
+        factory.setThreadGroupName(RunnerConfig.NAME);
+        final var pool = new ThreadPoolExecutor(properties.getThreads(), properties.getThreads(),
+                60, TimeUnit.SECONDS, queue(properties.getQueueSize()), factory, rejectionHandler(properties.getRejection()));
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Looks up virtual thread support, which is only available from Java 21.
+     *
+     * @return factory for virtual threads, or null if not supported
+     */
+    static @NullOr ThreadFactory virtualThreadFactory(String prefix) {
+        try {
+            final var builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            final var named = Class.forName("java.lang.Thread$Builder$OfVirtual")
+                    .getMethod("name", String.class, long.class)
+                    .invoke(builder, prefix, 1L);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder")
+                    .getMethod("factory")
+                    .invoke(named);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private BlockingQueue<Runnable> queue(int size) {
+        return (size > 0) ? new LinkedBlockingQueue<>(size) : new SynchronousQueue<>();
+    }
+
+    private RejectedExecutionHandler rejectionHandler(Rejection rejection) {
+        switch (rejection) {
+            case CALLER_RUNS:
+                return new ThreadPoolExecutor.CallerRunsPolicy();
+            case DISCARD:
+            default:
+                return new ThreadPoolExecutor.AbortPolicy();
+        }
+    }
+
+    /**
+     * Aborts all running and queued tasks.
+     */
+    public void shutdown() {
+        pools.values().forEach(ExecutorService::shutdownNow);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta.registry;
+
+import com.philips.research.bombase.ConfigProperties.Rejection;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor that starts a new thread per task, while limiting the number of concurrently running tasks.
+ * <p>
+ * Intended for (cheap) virtual threads that mostly block on I/O, so waiting tasks hold no platform thread.
+ */
+class ThreadPerTaskExecutor extends AbstractExecutorService {
+    private final ThreadFactory factory;
+    private final Semaphore permits;
+    private final int maxWaiting;
+    private final Rejection rejection;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    private volatile boolean shutdown;
+
+    /**
+     * @param factory    creates the thread for each task
+     * @param limit      maximum number of concurrently running tasks
+     * @param maxWaiting maximum number of tasks waiting for execution
+     * @param rejection  handling of tasks beyond the waiting limit
+     */
+    ThreadPerTaskExecutor(ThreadFactory factory, int limit, int maxWaiting, Rejection rejection) {
+        this.factory = factory;
+        this.permits = new Semaphore(limit, true);
+        this.maxWaiting = maxWaiting;
+        this.rejection = rejection;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Executor was shut down");
+        }
+        if (waiting.incrementAndGet() > (long) maxWaiting + permits.availablePermits()) {
+            waiting.decrementAndGet();
+            reject(task);
+            return;
+        }
+        final var thread = factory.newThread(() -> {
+            try {
+                permits.acquire();
+                try {
+                    waiting.decrementAndGet();
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            } catch (InterruptedException e) {
+                waiting.decrementAndGet();
+                Thread.currentThread().interrupt();
+            } finally {
+                threads.remove(Thread.currentThread());
+            }
+        });
+        threads.add(thread);
+        thread.start();
+    }
+
+    private void reject(Runnable task) {
+        if (rejection == Rejection.CALLER_RUNS) {
+            task.run();
+        } else {
+            throw new RejectedExecutionException("Too many waiting tasks");
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        threads.forEach(Thread::interrupt);
+        return List.of();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && threads.isEmpty();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        final var deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!isTerminated()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            //noinspection BusyWait
+            Thread.sleep(10);
+        }
+        return true;
+    }
+}
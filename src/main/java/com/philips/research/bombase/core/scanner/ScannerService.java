@@ -5,15 +5,61 @@
 
 package com.philips.research.bombase.core.scanner;
 
+import pl.tlinkowski.annotation.basic.NullOr;
+
 import java.io.File;
 import java.net.URI;
+import java.time.Instant;
 import java.util.List;
+import java.util.UUID;
 
 public interface ScannerService {
     /**
+     * Scans with batch priority.
+     *
+     * @return list of licenses detected in the content indicated by the URI
+     */
+    default List<String> scanLicenses(URI uri) {
+        return scanLicenses(uri, Priority.BATCH);
+    }
+
+    /**
+     * Waits for the scan of the indicated content, joining a scan of the same location that is already in progress.
+     *
+     * @param priority order in which the scan is queued
      * @return list of licenses detected in the content indicated by the URI
+     * @throws ScannerException if the scan was cancelled
      */
-    List<String> scanLicenses(URI uri);
+    List<String> scanLicenses(URI uri, Priority priority);
+
+    /**
+     * @return queued, running, and recently completed scan jobs
+     */
+    List<ScanJobDto> getScans();
+
+    /**
+     * @param id scan job id
+     * @return status of the scan job
+     * @throws UnknownScanException if the scan job does not exist (anymore)
+     */
+    ScanJobDto getScan(UUID id);
+
+    /**
+     * Cancels a queued or running scan job, failing all waiting scan requests.
+     *
+     * @param id scan job id
+     * @throws UnknownScanException if the scan job does not exist (anymore)
+     */
+    void cancelScan(UUID id);
+
+    enum Priority {
+        INTERACTIVE, // Scans someone is waiting for
+        BATCH // Background (re)scans
+    }
+
+    enum ScanState {
+        QUEUED, RUNNING, DONE, FAILED, CANCELLED
+    }
 
     interface ScanResult {
         List<LicenseResult> getLicenses();
@@ -32,4 +78,14 @@ public interface ScannerService {
 
         int getEndLine();
     }
+
+    class ScanJobDto {
+        public UUID id;
+        public URI location;
+        public Priority priority;
+        public ScanState state;
+        public Instant created;
+        public @NullOr Instant started;
+        public @NullOr Instant finished;
+    }
 }
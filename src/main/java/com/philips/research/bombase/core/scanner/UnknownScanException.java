@@ -0,0 +1,14 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.scanner;
+
+import java.util.UUID;
+
+public class UnknownScanException extends ScannerException {
+    public UnknownScanException(UUID id) {
+        super("Scan '" + id + "' is unknown");
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.scanner.domain;
+
+import com.philips.research.bombase.core.support.Digests;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Identification of a directory tree by its contents.
+ * <p>
+ * The digest covers the relative path and the content hash of every file, so equal sources
+ * yield the same identifier independent of where they were downloaded from. The content hashes
+ * of the individual files are kept, so the files need to be read only once.
+ */
+final class ContentDigest {
+    private final SortedMap<String, String> files;
+    private final URI id;
+
+    private ContentDigest(SortedMap<String, String> files) {
+        this.files = files;
+        this.id = digest(files);
+    }
+
+    /**
+     * @param directory root of the tree
+     * @param ignored   names of top-level files and directories to exclude
+     * @throws IOException if the tree cannot be read
+     */
+    static ContentDigest of(Path directory, Set<String> ignored) throws IOException {
+        final var files = new TreeMap<String, String>();
+        final var encoder = Base64.getEncoder();
+        for (var file : files(directory, ignored)) {
+            final var name = directory.relativize(file).toString().replace('\\', '/');
+            files.put(name, encoder.encodeToString(Digests.sha256(file)));
+        }
+        return new ContentDigest(Collections.unmodifiableSortedMap(files));
+    }
+
+    private static List<Path> files(Path directory, Set<String> ignored) throws IOException {
+        try (var files = Files.walk(directory)) {
+            final var result = new ArrayList<Path>();
+            files.filter(Files::isRegularFile)
+                    .filter(file -> !ignored.contains(directory.relativize(file).getName(0).toString()))
+                    .forEach(result::add);
+            return result;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static URI digest(SortedMap<String, String> files) {
+        final var digest = Digests.sha256();
+        files.forEach((name, hash) -> {
+            digest.update(name.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(hash.getBytes(StandardCharsets.US_ASCII));
+            digest.update((byte) '\n');
+        });
+        return URI.create("ni:///sha-256;" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest()));
+    }
+
+    /**
+     * @return "named information" URI (RFC 6920) of the SHA-256 digest of the tree
+     */
+    URI getId() {
+        return id;
+    }
+
+    /**
+     * @return Base64 encoded SHA-256 hash by relative (slash-separated) path of every file in the tree
+     */
+    SortedMap<String, String> getFiles() {
+        return files;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.scanner.domain;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import pl.tlinkowski.annotation.basic.NullOr;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Matches license texts against a corpus of reference texts by comparing their fingerprints.
+ * <p>
+ * The fingerprint of a text is the set of hashes of all sequences of {@value SHINGLE_SIZE} consecutive
+ * words, ignoring case, punctuation, markup (including the "&lt;year&gt;" style placeholders of the
+ * reference texts), the license title, copyright statements, and list numbering. A text matches the reference with the most similar fingerprint (by their
+ * Sørensen–Dice coefficient) only if nearly all of the fingerprint of the text is covered by the
+ * reference text, and nearly all of the fingerprint of the reference text is covered by the text.
+ * Anything less is left to a full scan, because license variants (like BSD-3-Clause and BSD-4-Clause)
+ * differ by only a single clause and the corpus does not necessarily hold every variant.
+ * <p>
+ * The corpus is bundled with the most common licenses, and can be extended with a directory holding
+ * "&lt;SPDX-identifier&gt;.txt" files, like the "text" directory of the SPDX license list data.
+ */
+class FingerprintLicenseMatcher implements LicenseMatcher {
+    private static final Logger LOG = LoggerFactory.getLogger(FingerprintLicenseMatcher.class);
+    private static final String BUNDLED_TEXTS = "classpath:licenses/*.txt";
+    private static final String TEXT_EXTENSION = ".txt";
+    private static final String DEPRECATED_PREFIX = "deprecated_";
+    private static final Pattern MARKUP = Pattern.compile("<[^>]*>");
+    private static final Pattern TITLE = Pattern.compile("\\A\\s*(?=[^\\n]{0,80}\\n)[^\\n.]*\\blicen[cs]e\\b[^\\n.]*\\n",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern COPYRIGHT = Pattern.compile("^[^\\S\\n]*copyright\\b(?=[^\\S\\n]*(\\(c\\)|©|\\d|\\[|$)).*$",
+            Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
+    private static final Pattern NUMBERING = Pattern.compile("^[^\\S\\n]*\\(?(\\d{1,2}|[a-z]|[ivx]{1,4})[.)](?=\\s)",
+            Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final int SHINGLE_SIZE = 3;
+    private static final double THRESHOLD = 0.98;
+
+    private final List<String> licenses = new ArrayList<>();
+    private final List<Integer> sizes = new ArrayList<>();
+    private final Map<Long, List<Integer>> index = new HashMap<>();
+
+    FingerprintLicenseMatcher() {
+    }
+
+    /**
+     * @param texts (optional) directory with additional reference texts
+     * @return matcher for the bundled and indicated reference texts
+     */
+    static FingerprintLicenseMatcher load(@NullOr Path texts) {
+        final var matcher = new FingerprintLicenseMatcher();
+        try {
+            for (var resource : new PathMatchingResourcePatternResolver().getResources(BUNDLED_TEXTS)) {
+                matcher.add(licenseOf(Objects.requireNonNull(resource.getFilename())), read(resource));
+            }
+            if (texts != null) {
+                try (var files = Files.list(texts)) {
+                    for (var file : files.collect(Collectors.toList())) {
+                        final var name = file.getFileName().toString();
+                        if (name.endsWith(TEXT_EXTENSION) && !name.startsWith(DEPRECATED_PREFIX)) {
+                            matcher.add(licenseOf(name), Files.readString(file, StandardCharsets.UTF_8));
+                        }
+                    }
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            LOG.warn("Failed to load all license reference texts", e);
+        }
+        LOG.info("Loaded {} license reference texts", matcher.licenses.size());
+        return matcher;
+    }
+
+    private static String licenseOf(String filename) {
+        return filename.substring(0, filename.length() - TEXT_EXTENSION.length());
+    }
+
+    private static String read(Resource resource) throws IOException {
+        try (var stream = resource.getInputStream()) {
+            return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Adds (or replaces) a reference text to the corpus.
+     */
+    void add(String license, String text) {
+        final var fingerprint = fingerprint(text);
+        if (fingerprint.isEmpty()) {
+            return;
+        }
+        var id = licenses.indexOf(license);
+        if (id >= 0) {
+            final var replaced = id;
+            index.values().forEach(list -> list.remove(Integer.valueOf(replaced)));
+            sizes.set(id, fingerprint.size());
+        } else {
+            id = licenses.size();
+            licenses.add(license);
+            sizes.add(fingerprint.size());
+        }
+        for (var hash : fingerprint) {
+            index.computeIfAbsent(hash, (h) -> new ArrayList<>(1)).add(id);
+        }
+    }
+
+    @Override
+    public Optional<Match> match(String text) {
+        final var fingerprint = fingerprint(text);
+        if (fingerprint.isEmpty()) {
+            return Optional.empty();
+        }
+        final var common = new int[licenses.size()];
+        for (var hash : fingerprint) {
+            index.getOrDefault(hash, List.of()).forEach(id -> common[id]++);
+        }
+        var best = -1;
+        var similarity = 0.0;
+        for (var id = 0; id < common.length; id++) {
+            final var dice = 2.0 * common[id] / (sizes.get(id) + fingerprint.size());
+            if (dice > similarity) {
+                best = id;
+                similarity = dice;
+            }
+        }
+        if (best < 0 || !covers(common[best], fingerprint.size()) || !covers(common[best], sizes.get(best))) {
+            return Optional.empty();
+        }
+        return Optional.of(new Match(licenses.get(best), (int) Math.round(100 * similarity)));
+    }
+
+    private static boolean covers(int common, int size) {
+        return common >= THRESHOLD * size;
+    }
+
+    /**
+     * @return hashes of all word sequences in the text
+     */
+    static Set<Long> fingerprint(String text) {
+        var plain = MARKUP.matcher(text).replaceAll("\n");
+        plain = TITLE.matcher(plain).replaceFirst("");
+        plain = COPYRIGHT.matcher(plain).replaceAll("");
+        plain = NUMBERING.matcher(plain).replaceAll("");
+        final var words = WORD.matcher(plain.toLowerCase(Locale.ROOT));
+        final var window = new long[SHINGLE_SIZE];
+        final var result = new HashSet<Long>();
+        var count = 0;
+        while (words.find()) {
+            window[count++ % SHINGLE_SIZE] = words.group().hashCode();
+            if (count >= SHINGLE_SIZE) {
+                var hash = 0L;
+                for (var i = count - SHINGLE_SIZE; i < count; i++) {
+                    hash = hash * 1_000_003L + window[i % SHINGLE_SIZE];
+                }
+                result.add(hash);
+            }
+        }
+        return result;
+    }
+}
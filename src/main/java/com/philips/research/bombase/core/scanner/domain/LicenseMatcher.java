@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.scanner.domain;
+
+import java.util.Optional;
+
+/**
+ * Identification of a single license text, as a fast alternative to a full license scan.
+ */
+interface LicenseMatcher {
+    /**
+     * @param text contents of a file holding a license text
+     * @return the matching license, or empty if the text could not be identified with confidence
+     */
+    Optional<Match> match(String text);
+
+    class Match {
+        final String license;
+        final int score;
+
+        Match(String license, int score) {
+            this.license = license;
+            this.score = score;
+        }
+    }
+}
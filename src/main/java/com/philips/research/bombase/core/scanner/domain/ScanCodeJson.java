@@ -7,31 +7,63 @@ package com.philips.research.bombase.core.scanner.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.philips.research.bombase.core.scanner.ScannerService;
 import pl.tlinkowski.annotation.basic.NullOr;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * ScanCode Toolkit JSON result file mapping.
  */
-@JsonIgnoreProperties(ignoreUnknown = true)
-class ScanCodeJson implements ScannerService.ScanResult {
-    @JsonProperty("files")
-    final List<FileJson> files = new ArrayList<>();
+abstract class ScanCodeJson {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
 
-    @Override
-    public List<ScannerService.LicenseResult> getLicenses() {
+    /**
+     * Reads a result file one file entry at a time, so only a single entry is in memory.
+     *
+     * @param consumer receives the entries of the "files" array in order of appearance
+     */
+    static void read(File file, Consumer<FileJson> consumer) throws IOException {
+        try (var parser = MAPPER.getFactory().createParser(file)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object in " + file);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final var field = parser.getCurrentName();
+                parser.nextToken();
+                if ("files".equals(field) && parser.currentToken() == JsonToken.START_ARRAY) {
+                    readFiles(parser, consumer);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    private static void readFiles(JsonParser parser, Consumer<FileJson> consumer) throws IOException {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            consumer.accept(MAPPER.readValue(parser, FileJson.class));
+        }
+    }
+
+    /**
+     * Merges the detections of the same license expression, folding in one detection at a time.
+     */
+    static List<ScannerService.LicenseResult> merge(Stream<Detection> detections) {
         final var map = new HashMap<String, Detection>();
 
-        files.stream()
-                .flatMap(file -> file.getDetections().stream())
-                .forEach(det -> map.compute(det.getExpression(), (expr, prev) -> (prev != null) ? prev.merge(det) : det));
+        detections.forEach(det -> map.compute(det.getExpression(), (expr, prev) -> (prev != null) ? prev.merge(det) : det));
 
         return new ArrayList<>(map.values());
     }
@@ -46,6 +78,8 @@ class FileJson {
     private final Map<String, LicenseJson> licenseDictionary = new HashMap<>();
     @JsonProperty("path")
     String path = "";
+    @JsonProperty("scan_errors")
+    final List<String> errors = new ArrayList<>();
 
     List<Detection> getDetections() {
         final var dictionary = LicenseJson.buildDictionary(licenses);
@@ -5,42 +5,254 @@
 
 package com.philips.research.bombase.core.scanner.domain;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.philips.research.bombase.core.scanner.ScannerException;
 import com.philips.research.bombase.core.scanner.ScannerService.ScanResult;
 import com.philips.research.bombase.core.support.ShellCommand;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.FileSystemUtils;
+import pl.tlinkowski.annotation.basic.NullOr;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * Spring component for detecting licenses using the ScanCode Toolkit detector.
+ * <p>
+ * The detections are cached per file by the hash of its contents, so only files that were not
+ * scanned before are passed to ScanCode. Unless configured otherwise, the available processor
+ * cores are divided over all concurrently running scans.
  *
  * @see <a href="https://github.com/nexB/scancode-toolkit">ScanCode Toolkit</a>
  */
 class ScanCodeScanner {
-    private static final String RESULT_FILE = "scancode.json";
+    static final String RESULT_FILE = "scancode.json";
+    private static final Logger LOG = LoggerFactory.getLogger(ScanCodeScanner.class);
     private static final Duration MAX_SCAN_DURATION = Duration.ofMinutes(30);
     private static final int SCORE_THRESHOLD = 50;
-    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String IGNORED_PREFIX = "test";
+    private static final int MAX_CACHED_FILES = 100_000;
+
+    private final int processes;
+    private final AtomicInteger activeScans = new AtomicInteger();
+    private final Map<String, List<FileLicense>> fileCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<FileLicense>> eldest) {
+            return size() > MAX_CACHED_FILES;
+        }
+    });
+
+    ScanCodeScanner() {
+        this(0);
+    }
+
+    /**
+     * @param processes number of parallel ScanCode processes per scan, or 0 to adapt to the available cores
+     */
+    ScanCodeScanner(int processes) {
+        this.processes = processes;
+    }
 
     ScanResult scan(Path directory) {
+        try {
+            return scan(directory, ContentDigest.of(directory, Set.of()));
+        } catch (IOException e) {
+            throw new ScannerException("Failed to read the files in " + directory, e);
+        }
+    }
+
+    /**
+     * @param content content hashes of the files in the directory
+     */
+    ScanResult scan(Path directory, ContentDigest content) {
+        activeScans.incrementAndGet();
+        try {
+            final var hashes = scannedFiles(content);
+            final var detections = cachedDetections(hashes.values());
+            final var unseen = hashes.entrySet().stream()
+                    .filter(entry -> !detections.containsKey(entry.getValue()))
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+            LOG.info("Scanning {} of {} files in {}", unseen.size(), hashes.size(), directory);
+            if (!unseen.isEmpty()) {
+                scanFiles(directory, unseen, unseen.size() < hashes.size(), hashes, detections);
+            }
+            return mergedResult(hashes, detections);
+        } finally {
+            activeScans.decrementAndGet();
+        }
+    }
+
+    int processCount() {
+        if (processes > 0) {
+            return processes;
+        }
+        final var cores = Runtime.getRuntime().availableProcessors();
+        return Math.max(1, cores / Math.max(1, activeScans.get()));
+    }
+
+    /**
+     * @return content hash by relative path of every file to scan
+     */
+    private Map<String, String> scannedFiles(ContentDigest content) {
+        final var result = new TreeMap<String, String>();
+        content.getFiles().forEach((path, hash) -> {
+            if (isScanned(Path.of(path))) {
+                result.put(path, hash);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Takes a snapshot of the cached detections, so cache evictions during the scan cannot drop any findings.
+     *
+     * @return cached detections by content hash
+     */
+    private Map<String, List<FileLicense>> cachedDetections(Collection<String> hashes) {
+        final var result = new HashMap<String, List<FileLicense>>();
+        synchronized (fileCache) {
+            hashes.forEach(hash -> {
+                final @NullOr List<FileLicense> licenses = fileCache.get(hash);
+                if (licenses != null) {
+                    result.put(hash, licenses);
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Excludes the files that are ignored by ScanCode, and the VCS administration.
+     */
+    private boolean isScanned(Path path) {
+        if (path.toString().equals(RESULT_FILE) || path.getName(0).toString().equals(".git")) {
+            return false;
+        }
+        for (var name : path) {
+            if (name.toString().startsWith(IGNORED_PREFIX)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Scans the indicated files, staging them in a separate directory if not all files need scanning.
+     * Only the detections of files that were scanned without errors are cached, including the files
+     * without any findings.
+     *
+     * @param detections receives the detections by content hash of the scanned files
+     */
+    private void scanFiles(Path directory, List<String> files, boolean partial, Map<String, String> hashes,
+                           Map<String, List<FileLicense>> detections) {
+        final Consumer<FileJson> cache = file -> {
+            final var hash = hashes.get(file.path);
+            if (hash != null) {
+                final var licenses = file.getDetections().stream()
+                        .map(FileLicense::new)
+                        .collect(Collectors.toList());
+                detections.put(hash, licenses);
+                if (file.errors.isEmpty()) {
+                    fileCache.put(hash, licenses);
+                } else {
+                    LOG.warn("Not caching scan of {}: {}", file.path, file.errors);
+                }
+            }
+        };
+        if (!partial) {
+            scanCode(directory, processCount(), cache);
+        } else {
+            @NullOr Path staging = null;
+            try {
+                staging = Files.createTempDirectory("scan-");
+                for (var file : files) {
+                    stage(directory.resolve(file), staging.resolve(file));
+                }
+                scanCode(staging, processCount(), cache);
+            } catch (IOException e) {
+                throw new ScannerException("Failed to stage the files to scan", e);
+            } finally {
+                deleteQuietly(staging);
+            }
+        }
+    }
+
+    private void stage(Path file, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        try {
+            Files.createLink(target, file);
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(file, target);
+        }
+    }
+
+    private void deleteQuietly(@NullOr Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try {
+            FileSystemUtils.deleteRecursively(directory);
+        } catch (IOException e) {
+            LOG.warn("Could not remove staging directory {}", directory);
+        }
+    }
+
+    /**
+     * Invokes ScanCode on all files in a directory.
+     *
+     * @param files receives the result per scanned file (and directory)
+     */
+    void scanCode(Path directory, int processes, Consumer<FileJson> files) {
         new ShellCommand("scancode")
                 .setDirectory(directory.toFile())
                 .setTimeout(MAX_SCAN_DURATION)
-                .execute("--license", "-n2", "--verbose", "--timeout=" + MAX_SCAN_DURATION.toSeconds(), "--only-findings",
-                        "--license-score", SCORE_THRESHOLD, "--strip-root", "--ignore", "test*", "--ignore", RESULT_FILE,
-                        "--json-pp", RESULT_FILE, ".");
-        return readResult(directory.resolve(RESULT_FILE).toFile());
+                .execute("--license", "-n" + processes, "--verbose", "--timeout=" + MAX_SCAN_DURATION.toSeconds(),
+                        "--license-score", SCORE_THRESHOLD, "--strip-root", "--ignore", IGNORED_PREFIX + "*", "--ignore", RESULT_FILE,
+                        "--json", RESULT_FILE, ".");
+        readResult(directory.resolve(RESULT_FILE).toFile(), files);
     }
 
-    private ScanResult readResult(File file) {
+    private void readResult(File file, Consumer<FileJson> files) {
         try {
-            return MAPPER.readValue(file, ScanCodeJson.class);
+            ScanCodeJson.read(file, files);
         } catch (IOException e) {
             throw new ScannerException("Failed to read scan results", e);
         }
     }
+
+    private ScanResult mergedResult(Map<String, String> hashes, Map<String, List<FileLicense>> detections) {
+        final var licenses = ScanCodeJson.merge(hashes.entrySet().stream()
+                .flatMap(file -> detections.getOrDefault(file.getValue(), List.of()).stream()
+                        .map(license -> license.toDetection(file.getKey()))));
+        return () -> licenses;
+    }
+
+    /**
+     * License detection within a file, independent of the location of the file.
+     */
+    private static class FileLicense {
+        final String expression;
+        final int score;
+        final int startLine;
+        final int endLine;
+
+        FileLicense(Detection detection) {
+            this.expression = detection.getExpression();
+            this.score = detection.getScore();
+            this.startLine = detection.getStartLine();
+            this.endLine = detection.getEndLine();
+        }
+
+        Detection toDetection(String path) {
+            return new Detection(expression, score, new File(path), startLine, endLine);
+        }
+    }
 }
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.scanner.domain;
+
+import com.philips.research.bombase.core.scanner.ScannerException;
+import com.philips.research.bombase.core.scanner.ScannerService.Priority;
+import com.philips.research.bombase.core.scanner.ScannerService.ScanJobDto;
+import com.philips.research.bombase.core.scanner.ScannerService.ScanResult;
+import com.philips.research.bombase.core.scanner.ScannerService.ScanState;
+import com.philips.research.bombase.core.scanner.UnknownScanException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import pl.tlinkowski.annotation.basic.NullOr;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Executes scan jobs in order of priority, running at most a single job per location.
+ * <p>
+ * Requests for a location that is already queued or being scanned join the existing job,
+ * which is promoted if the new request has a higher priority.
+ */
+class ScanQueue {
+    private static final Logger LOG = LoggerFactory.getLogger(ScanQueue.class);
+    private static final int MAX_FINISHED_JOBS = 100;
+
+    private final ThreadPoolExecutor executor;
+    private final Map<URI, ScanJob> active = new HashMap<>();
+    private final Map<UUID, ScanJob> jobs = new LinkedHashMap<>();
+    private final Queue<ScanJob> finished = new ArrayDeque<>();
+    private long sequence;
+
+    /**
+     * @param threads maximum number of concurrent scans
+     */
+    ScanQueue(int threads) {
+        final var factory = new CustomizableThreadFactory("scanner-");
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new PriorityBlockingQueue<>(), factory);
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queues a scan, unless a scan for the same location is already queued or running.
+     *
+     * @param location (normalized) location identifying the scan
+     * @param priority order in which the scan is executed
+     * @param scan     performs the scan
+     * @return the job scanning the location
+     */
+    synchronized ScanJob submit(URI location, Priority priority, Supplier<ScanResult> scan) {
+        final @NullOr ScanJob existing = active.get(location);
+        if (existing != null) {
+            promote(existing, priority);
+            return existing;
+        }
+        final var job = new ScanJob(location, priority, sequence++, scan);
+        active.put(location, job);
+        jobs.put(job.id, job);
+        executor.execute(job);
+        return job;
+    }
+
+    private void promote(ScanJob job, Priority priority) {
+        if (priority.compareTo(job.priority) >= 0) {
+            return;
+        }
+        if (executor.remove(job)) {
+            job.priority = priority;
+            executor.execute(job);
+            LOG.info("Promoted scan of {} to {} priority", job.location, priority);
+        } else {
+            job.priority = priority;
+        }
+    }
+
+    synchronized List<ScanJobDto> jobs() {
+        return jobs.values().stream()
+                .map(ScanJob::toDto)
+                .collect(Collectors.toList());
+    }
+
+    synchronized ScanJobDto job(UUID id) {
+        return find(id).toDto();
+    }
+
+    /**
+     * Removes a queued job, or interrupts a running job.
+     */
+    void cancel(UUID id) {
+        final ScanJob job;
+        synchronized (this) {
+            job = find(id);
+            executor.remove(job);
+        }
+        if (job.cancel()) {
+            LOG.info("Cancelled scan of {}", job.location);
+            finish(job);
+            job.result.cancel(false);
+        }
+    }
+
+    private ScanJob find(UUID id) {
+        final @NullOr ScanJob job = jobs.get(id);
+        if (job == null) {
+            throw new UnknownScanException(id);
+        }
+        return job;
+    }
+
+    private synchronized void finish(ScanJob job) {
+        if (active.remove(job.location, job)) {
+            finished.add(job);
+            while (finished.size() > MAX_FINISHED_JOBS) {
+                jobs.remove(finished.remove().id);
+            }
+        }
+    }
+
+    /**
+     * Aborts all running and queued scans, failing the requests waiting for queued scans.
+     */
+    void shutdown() {
+        executor.shutdownNow().stream()
+                .map(ScanJob.class::cast)
+                .filter(ScanJob::cancel)
+                .forEach(job -> {
+                    finish(job);
+                    job.result.completeExceptionally(new ScannerException("Scan of " + job.location + " was aborted by shutdown"));
+                });
+    }
+
+    /**
+     * Scan of a single location, ordered by priority and order of submission.
+     */
+    class ScanJob implements Runnable, Comparable<ScanJob> {
+        final UUID id = UUID.randomUUID();
+        final URI location;
+        final Instant created = Instant.now();
+        private final long sequence;
+        private final Supplier<ScanResult> scan;
+        private final CompletableFuture<ScanResult> result = new CompletableFuture<>();
+        private volatile Priority priority;
+        private ScanState state = ScanState.QUEUED;
+        private @NullOr Instant started;
+        private @NullOr Instant ended;
+        private @NullOr Thread worker;
+
+        ScanJob(URI location, Priority priority, long sequence, Supplier<ScanResult> scan) {
+            this.location = location;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.scan = scan;
+        }
+
+        @Override
+        public void run() {
+            if (!start()) {
+                return;
+            }
+            // Leave the queue before waking up the waiting requests, so new requests start a fresh scan
+            try {
+                final var value = scan.get();
+                if (end(ScanState.DONE)) {
+                    finish(this);
+                    result.complete(value);
+                }
+            } catch (Exception e) {
+                if (end(ScanState.FAILED)) {
+                    finish(this);
+                    result.completeExceptionally(e);
+                }
+            } finally {
+                //noinspection ResultOfMethodCallIgnored
+                Thread.interrupted();
+            }
+        }
+
+        private synchronized boolean start() {
+            if (state != ScanState.QUEUED) {
+                return false;
+            }
+            state = ScanState.RUNNING;
+            started = Instant.now();
+            worker = Thread.currentThread();
+            return true;
+        }
+
+        /**
+         * @return false if the job was cancelled
+         */
+        private synchronized boolean end(ScanState state) {
+            worker = null;
+            if (this.state != ScanState.RUNNING) {
+                return false;
+            }
+            this.state = state;
+            ended = Instant.now();
+            return true;
+        }
+
+        /**
+         * Marks the job as cancelled, without completing the waiting requests.
+         *
+         * @return true if the job was not completed yet
+         */
+        synchronized boolean cancel() {
+            if (state != ScanState.QUEUED && state != ScanState.RUNNING) {
+                return false;
+            }
+            if (worker != null) {
+                worker.interrupt();
+            }
+            state = ScanState.CANCELLED;
+            ended = Instant.now();
+            return true;
+        }
+
+        /**
+         * Waits for the job to complete.
+         *
+         * @return result of the scan
+         * @throws ScannerException if the job was cancelled
+         */
+        ScanResult await() {
+            try {
+                return result.get();
+            } catch (CancellationException e) {
+                throw new ScannerException("Scan of " + location + " was cancelled");
+            } catch (ExecutionException e) {
+                final var cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new ScannerException("Scan of " + location + " failed", cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ScannerException("Waiting for the scan of " + location + " was interrupted", e);
+            }
+        }
+
+        synchronized ScanJobDto toDto() {
+            final var dto = new ScanJobDto();
+            dto.id = id;
+            dto.location = location;
+            dto.priority = priority;
+            dto.state = state;
+            dto.created = created;
+            dto.started = started;
+            dto.finished = ended;
+            return dto;
+        }
+
+        @Override
+        public int compareTo(ScanJob other) {
+            final var order = priority.compareTo(other.priority);
+            return (order != 0) ? order : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -5,6 +5,9 @@
 
 package com.philips.research.bombase.core.scanner.domain;
 
+import com.philips.research.bombase.ConfigProperties;
+import com.philips.research.bombase.ConfigProperties.PoolProperties;
+import com.philips.research.bombase.core.downloader.DownloadLocation;
 import com.philips.research.bombase.core.downloader.DownloadService;
 import com.philips.research.bombase.core.scanner.ScannerService;
 import com.philips.research.bombase.core.scanner.ScannerStore;
@@ -13,32 +16,64 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 public class ScannerInteractor implements ScannerService {
     private static final Logger LOG = LoggerFactory.getLogger(ScannerInteractor.class);
+    private static final Set<String> IGNORED_FILES = Set.of(".git", ScanCodeScanner.RESULT_FILE);
+    /**
+     * Pool configuration of which only the number of threads applies, as scans are queued by priority.
+     */
+    private static final String SCAN_POOL = "scanner";
+    private static final long MAX_LICENSE_TEXT_SIZE = 256 * 1024;
 
     private final ScannerStore store;
     private final DownloadService downloader;
     private final ScanCodeScanner scanner;
+    private final ScanQueue queue;
+    private final LicenseMatcher matcher;
 
     @Autowired
-    public ScannerInteractor(ScannerStore store, DownloadService downloader) {
-        this(store, downloader, new ScanCodeScanner());
+    public ScannerInteractor(ScannerStore store, DownloadService downloader, ConfigProperties config) {
+        this(store, downloader, new ScanCodeScanner(config.getScanProcesses()),
+                new ScanQueue(config.getPools().getOrDefault(SCAN_POOL, new PoolProperties()).getThreads()),
+                FingerprintLicenseMatcher.load(config.getLicenseTexts()));
     }
 
     ScannerInteractor(ScannerStore store, DownloadService downloader, ScanCodeScanner scanner) {
+        this(store, downloader, scanner, new ScanQueue(1), new FingerprintLicenseMatcher());
+    }
+
+    ScannerInteractor(ScannerStore store, DownloadService downloader, ScanCodeScanner scanner, ScanQueue queue, LicenseMatcher matcher) {
         this.store = store;
         this.downloader = downloader;
         this.scanner = scanner;
+        this.queue = queue;
+        this.matcher = matcher;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        queue.shutdown();
     }
 
     @Override
-    public List<String> scanLicenses(URI location) {
-        final var licenses = loadOrScan(location)
+    public List<String> scanLicenses(URI location, Priority priority) {
+        final var key = DownloadLocation.normalize(location);
+        final var licenses = store.retrieve(key)
+                .orElseGet(() -> queue.submit(key, priority, () -> loadOrScan(location)).await())
                 .getLicenses().stream()
                 .sorted((l, r) -> Integer.compare(r.getScore(), l.getScore()))
                 .map(LicenseResult::getExpression)
@@ -47,12 +82,78 @@ public class ScannerInteractor implements ScannerService {
         return licenses;
     }
 
+    @Override
+    public List<ScanJobDto> getScans() {
+        return queue.jobs();
+    }
+
+    @Override
+    public ScanJobDto getScan(UUID id) {
+        return queue.job(id);
+    }
+
+    @Override
+    public void cancelScan(UUID id) {
+        queue.cancel(id);
+    }
+
     private ScanResult loadOrScan(URI location) {
-        return store.retrieve(location)
+        final var key = DownloadLocation.normalize(location);
+        return store.retrieve(key)
                 .orElseGet(() -> {
-                    final var result = downloader.download(location, scanner::scan);
-                    store.store(location, result);
+                    final var result = downloader.download(location, this::loadOrScan);
+                    store.store(key, result);
                     return result;
                 });
     }
+
+    /**
+     * Reuses the scan result of identical sources downloaded from a different location.
+     */
+    private ScanResult loadOrScan(Path directory) {
+        final ContentDigest content;
+        try {
+            content = ContentDigest.of(directory, IGNORED_FILES);
+        } catch (IOException e) {
+            LOG.warn("Could not determine the content digest of {}", directory, e);
+            return scan(directory, () -> scanner.scan(directory));
+        }
+        return store.retrieve(content.getId())
+                .orElseGet(() -> {
+                    final var result = scan(directory, () -> scanner.scan(directory, content));
+                    store.store(content.getId(), result);
+                    return result;
+                });
+    }
+
+    private ScanResult scan(Path directory, Supplier<ScanResult> scan) {
+        return matchLicenseText(directory)
+                .<ScanResult>map(detection -> () -> List.of(detection))
+                .orElseGet(scan);
+    }
+
+    /**
+     * Identifies a download consisting of a single license text without a full scan.
+     */
+    private Optional<Detection> matchLicenseText(Path directory) {
+        try (var files = Files.walk(directory)) {
+            final var found = files.filter(Files::isRegularFile)
+                    .filter(file -> !IGNORED_FILES.contains(directory.relativize(file).getName(0).toString()))
+                    .limit(2)
+                    .collect(Collectors.toList());
+            if (found.size() != 1 || Files.size(found.get(0)) > MAX_LICENSE_TEXT_SIZE) {
+                return Optional.empty();
+            }
+            final var file = found.get(0);
+            final var text = Files.readString(file);
+            return matcher.match(text)
+                    .map(match -> {
+                        LOG.info("Matched license text in {} as {}", directory, match.license);
+                        return new Detection(match.license, match.score, directory.relativize(file).toFile(),
+                                1, (int) text.lines().count());
+                    });
+        } catch (IOException | UncheckedIOException e) {
+            return Optional.empty();
+        }
+    }
 }
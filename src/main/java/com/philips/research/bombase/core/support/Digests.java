@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.support;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 hashing of values and file contents.
+ */
+public final class Digests {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private Digests() {
+    }
+
+    /**
+     * @return new SHA-256 message digest
+     */
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    /**
+     * @return hexadecimal SHA-256 hash of the value, for use as a stable file name
+     */
+    public static String sha256Hex(String value) {
+        final var digest = sha256().digest(value.getBytes(StandardCharsets.UTF_8));
+        final var hex = new StringBuilder();
+        for (var b : digest) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * @return SHA-256 hash of the contents of the file
+     * @throws IOException if the file cannot be read
+     */
+    public static byte[] sha256(Path file) throws IOException {
+        final var digest = sha256();
+        try (var stream = Files.newInputStream(file)) {
+            final var buffer = new byte[BUFFER_SIZE];
+            int count;
+            while ((count = stream.read(buffer)) > 0) {
+                digest.update(buffer, 0, count);
+            }
+        }
+        return digest.digest();
+    }
+}
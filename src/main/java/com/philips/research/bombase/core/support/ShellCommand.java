@@ -7,9 +7,12 @@ package com.philips.research.bombase.core.support;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import pl.tlinkowski.annotation.basic.NullOr;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
@@ -65,7 +68,7 @@ public class ShellCommand {
         try {
             LOG.info("Invoke {} {} from {}", command, args, directory);
 
-            Process process = invoke(args);
+            Process process = invoke(args, null);
             assertSuccessStatus(process);
         } catch (IOException e) {
             throw new ShellException("Command '" + command + "' failed", e);
@@ -74,20 +77,59 @@ public class ShellCommand {
         }
     }
 
-    private Process invoke(Iterable<Object> args) throws IOException, InterruptedException {
-        var process = new ProcessBuilder()
+    /**
+     * Performs the command with the provided arguments.
+     *
+     * @param args arguments
+     * @return lines written by the command to its standard output
+     */
+    public List<String> output(Object... args) {
+        @NullOr File file = null;
+        try {
+            LOG.info("Invoke {} {} from {}", command, List.of(args), directory);
+
+            file = File.createTempFile("shell-", ".out");
+            Process process = invoke(List.of(args), file);
+            assertSuccessStatus(process);
+            return Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new ShellException("Command '" + command + "' failed", e);
+        } catch (InterruptedException e) {
+            throw new ShellException("Waiting for '" + command + "' was interrupted", e);
+        } finally {
+            if (file != null) {
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+            }
+        }
+    }
+
+    private Process invoke(Iterable<Object> args, @NullOr File output) throws IOException, InterruptedException {
+        final var builder = new ProcessBuilder()
                 .directory(directory)
                 .inheritIO()
-                .command(invocationArguments(args))
-                .start();
-        if (!process.waitFor(timeout.toSeconds(), TimeUnit.SECONDS)) {
-            process.descendants().forEach(ProcessHandle::destroyForcibly);
-            process.destroyForcibly();
-            throw new ShellException("Aborted '" + command + "' after " + timeout.toSeconds() + " seconds");
+                .command(invocationArguments(args));
+        if (output != null) {
+            builder.redirectOutput(output);
+        }
+        var process = builder.start();
+        try {
+            if (!process.waitFor(timeout.toSeconds(), TimeUnit.SECONDS)) {
+                destroy(process);
+                throw new ShellException("Aborted '" + command + "' after " + timeout.toSeconds() + " seconds");
+            }
+        } catch (InterruptedException e) {
+            destroy(process);
+            throw e;
         }
         return process;
     }
 
+    private void destroy(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
     private List<String> invocationArguments(Iterable<Object> arguments) {
         var result = new ArrayList<String>();
         result.add(command);
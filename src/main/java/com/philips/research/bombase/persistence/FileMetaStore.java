@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.persistence;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.packageurl.PackageURL;
+import com.philips.research.bombase.ConfigProperties;
+import com.philips.research.bombase.core.meta.MetaException;
+import com.philips.research.bombase.core.meta.registry.Attribute;
+import com.philips.research.bombase.core.meta.registry.Field;
+import com.philips.research.bombase.core.meta.registry.Package;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import pl.tlinkowski.annotation.basic.NullOr;
+
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Durable store for package metadata.
+ * <p>
+ * Keeps all packages indexed in memory, and appends a snapshot of every created or modified package
+ * to a journal file. The journal is replayed on startup, and compacted into a single snapshot per
+ * package when it holds too many superseded records.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "bom-base", name = "store", havingValue = "file")
+public class FileMetaStore extends MemoryMetaStore {
+    private static final Logger LOG = LoggerFactory.getLogger(FileMetaStore.class);
+    private static final String JOURNAL_FILE = "packages.ndjson";
+    private static final int MIN_COMPACTION_RECORDS = 1000;
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false)
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.NON_PRIVATE)
+            .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+            .registerModule(new JavaTimeModule());
+
+    private final Object lock = new Object();
+    private final Path journal;
+    @SuppressWarnings("NotNullFieldNotInitialized")
+    private BufferedWriter writer;
+    private int records;
+
+    @Autowired
+    public FileMetaStore(ConfigProperties config) {
+        this(config.getDataDirectory());
+    }
+
+    FileMetaStore(Path directory) {
+        try {
+            Files.createDirectories(directory);
+            journal = directory.resolve(JOURNAL_FILE);
+            replay();
+            compact();
+            LOG.info("Restored {} packages from {}", getPackages().size(), journal);
+        } catch (IOException e) {
+            throw new MetaException("Failed to open the package journal in " + directory, e);
+        }
+    }
+
+    @Override
+    void created(Package pkg) {
+        append(pkg);
+    }
+
+    @Override
+    public void updatePackage(Package pkg) {
+        super.updatePackage(pkg);
+        append(pkg);
+    }
+
+    @PreDestroy
+    void close() {
+        synchronized (lock) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                LOG.warn("Failed to close package journal {}", journal, e);
+            }
+        }
+    }
+
+    private void replay() throws IOException {
+        final var latest = new HashMap<PackageURL, Package>();
+        if (journal.toFile().exists()) {
+            try (BufferedReader reader = Files.newBufferedReader(journal, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank()) {
+                        records++;
+                        readRecord(line).ifPresent(pkg -> latest.put(pkg.getPurl(), pkg));
+                    }
+                }
+            }
+        }
+        latest.values().forEach(this::restore);
+    }
+
+    private Optional<Package> readRecord(String line) {
+        try {
+            return Optional.of(MAPPER.readValue(line, PackageRecord.class).toPackage());
+        } catch (Exception e) {
+            LOG.warn("Skipped unreadable package journal record: {}", line);
+            return Optional.empty();
+        }
+    }
+
+    private void append(Package pkg) {
+        synchronized (lock) {
+            try {
+                writer.write(MAPPER.writeValueAsString(new PackageRecord(pkg)));
+                writer.newLine();
+                writer.flush();
+                records++;
+                if (records > Math.max(MIN_COMPACTION_RECORDS, 2 * getPackages().size())) {
+                    writer.close();
+                    compact();
+                }
+            } catch (IOException e) {
+                throw new MetaException("Failed to persist package " + pkg.getPurl(), e);
+            }
+        }
+    }
+
+    /**
+     * Replaces the journal by a single record per package, and (re)opens the journal for writing.
+     */
+    private void compact() throws IOException {
+        synchronized (lock) {
+            if (records > getPackages().size()) {
+                LOG.info("Compacting package journal {}", journal);
+                final var temp = journal.resolveSibling(JOURNAL_FILE + ".tmp");
+                try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    for (var pkg : getPackages()) {
+                        out.write(MAPPER.writeValueAsString(new PackageRecord(pkg)));
+                        out.newLine();
+                    }
+                }
+                Files.move(temp, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                records = getPackages().size();
+            }
+            writer = Files.newBufferedWriter(journal, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+    }
+
+    /**
+     * Journal representation of a package snapshot.
+     */
+    static class PackageRecord {
+        @NullOr String purl;
+        @NullOr Instant updated;
+        List<AttributeRecord> attributes = new ArrayList<>();
+
+        @SuppressWarnings("unused")
+        PackageRecord() {
+        }
+
+        PackageRecord(Package pkg) {
+            purl = pkg.getPurl().canonicalize();
+            updated = pkg.getLastUpdated();
+            attributes = pkg.getAttributes()
+                    .map(AttributeRecord::new)
+                    .collect(Collectors.toList());
+        }
+
+        Package toPackage() throws Exception {
+            //noinspection ConstantConditions
+            final var pkg = new Package(new PackageURL(purl), updated);
+            attributes.forEach(attr -> pkg.add(attr.toAttribute()));
+            return pkg;
+        }
+    }
+
+    /**
+     * Journal representation of an attribute value.
+     */
+    static class AttributeRecord {
+        @NullOr Field field;
+        int score;
+        @NullOr Object value;
+        int altScore;
+        @NullOr Object altValue;
+
+        @SuppressWarnings("unused")
+        AttributeRecord() {
+        }
+
+        AttributeRecord(Attribute<?> attribute) {
+            field = attribute.getField();
+            score = attribute.getScore();
+            value = attribute.getValue().orElse(null);
+            altScore = attribute.getAltScore();
+            altValue = attribute.getAltValue().orElse(null);
+        }
+
+        Attribute<Object> toAttribute() {
+            //noinspection ConstantConditions
+            return new Attribute<>(field, score, convert(value), altScore, convert(altValue));
+        }
+
+        private @NullOr Object convert(@NullOr Object value) {
+            //noinspection ConstantConditions
+            return (value != null) ? MAPPER.convertValue(value, field.getType()) : null;
+        }
+    }
+}
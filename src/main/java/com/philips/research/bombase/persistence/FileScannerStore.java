@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.persistence;
+
+import com.philips.research.bombase.ConfigProperties;
+import com.philips.research.bombase.core.scanner.ScannerException;
+import com.philips.research.bombase.core.scanner.ScannerService.LicenseResult;
+import com.philips.research.bombase.core.scanner.ScannerService.ScanResult;
+import com.philips.research.bombase.core.scanner.ScannerStore;
+import com.philips.research.bombase.core.support.Digests;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import pl.tlinkowski.annotation.basic.NullOr;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Durable store for scan results.
+ * <p>
+ * Every scan result is written as a compressed binary file named after the hash of its location.
+ * Recently used results are kept in memory.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "bom-base", name = "store", havingValue = "file")
+public class FileScannerStore implements ScannerStore {
+    private static final Logger LOG = LoggerFactory.getLogger(FileScannerStore.class);
+    private static final String SCANS_DIRECTORY = "scans";
+    private static final String EXTENSION = ".bin.gz";
+    private static final int FORMAT_VERSION = 1;
+    private static final int CACHE_SIZE = 1000;
+
+    private final Path directory;
+    private final Map<URI, ScanResult> cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<URI, ScanResult> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    });
+
+    @Autowired
+    public FileScannerStore(ConfigProperties config) {
+        this(config.getDataDirectory());
+    }
+
+    FileScannerStore(Path dataDirectory) {
+        directory = dataDirectory.resolve(SCANS_DIRECTORY);
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new ScannerException("Failed to create scan results directory " + directory, e);
+        }
+    }
+
+    @Override
+    public void store(URI location, ScanResult scan) {
+        final var file = fileFor(location);
+        @NullOr Path temp = null;
+        try {
+            // Every write uses its own temporary file, so concurrent writes cannot corrupt each other
+            temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(temp))))) {
+                write(out, location, scan);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw new ScannerException("Failed to store scan result for " + location, e);
+        }
+        cache.put(location, scan);
+    }
+
+    private void deleteQuietly(@NullOr Path temp) {
+        if (temp == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            LOG.warn("Failed to remove temporary file {}", temp, e);
+        }
+    }
+
+    @Override
+    public Optional<ScanResult> retrieve(URI location) {
+        final var cached = cache.get(location);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        final var file = fileFor(location);
+        if (!file.toFile().exists()) {
+            return Optional.empty();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+            final var result = read(in, location);
+            result.ifPresent(scan -> cache.put(location, scan));
+            return result;
+        } catch (IOException e) {
+            LOG.warn("Ignored unreadable scan result {} for {}", file, location, e);
+            return Optional.empty();
+        }
+    }
+
+    private void write(DataOutputStream out, URI location, ScanResult scan) throws IOException {
+        final var licenses = scan.getLicenses();
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(location.toString());
+        out.writeInt(licenses.size());
+        for (var license : licenses) {
+            out.writeUTF(license.getExpression());
+            out.writeInt(license.getScore());
+            out.writeInt(license.getConfirmations());
+            out.writeUTF(license.getFile().getPath());
+            out.writeInt(license.getStartLine());
+            out.writeInt(license.getEndLine());
+        }
+    }
+
+    private Optional<ScanResult> read(DataInputStream in, URI location) throws IOException {
+        if (in.readInt() != FORMAT_VERSION || !location.toString().equals(in.readUTF())) {
+            return Optional.empty();
+        }
+        final var count = in.readInt();
+        final var licenses = new ArrayList<LicenseResult>(count);
+        for (int i = 0; i < count; i++) {
+            licenses.add(new StoredLicense(in.readUTF(), in.readInt(), in.readInt(), new File(in.readUTF()), in.readInt(), in.readInt()));
+        }
+        return Optional.of(new StoredScan(licenses));
+    }
+
+    private Path fileFor(URI location) {
+        return directory.resolve(Digests.sha256Hex(location.toString()) + EXTENSION);
+    }
+
+    private static class StoredScan implements ScanResult {
+        private final List<LicenseResult> licenses;
+
+        StoredScan(List<LicenseResult> licenses) {
+            this.licenses = licenses;
+        }
+
+        @Override
+        public List<LicenseResult> getLicenses() {
+            return licenses;
+        }
+    }
+
+    private static class StoredLicense implements LicenseResult {
+        private final String expression;
+        private final int score;
+        private final int confirmations;
+        private final File file;
+        private final int startLine;
+        private final int endLine;
+
+        StoredLicense(String expression, int score, int confirmations, File file, int startLine, int endLine) {
+            this.expression = expression;
+            this.score = score;
+            this.confirmations = confirmations;
+            this.file = file;
+            this.startLine = startLine;
+            this.endLine = endLine;
+        }
+
+        @Override
+        public String getExpression() {
+            return expression;
+        }
+
+        @Override
+        public int getScore() {
+            return score;
+        }
+
+        @Override
+        public int getConfirmations() {
+            return confirmations;
+        }
+
+        @Override
+        public File getFile() {
+            return file;
+        }
+
+        @Override
+        public int getStartLine() {
+            return startLine;
+        }
+
+        @Override
+        public int getEndLine() {
+            return endLine;
+        }
+    }
+}
@@ -6,23 +6,100 @@
 package com.philips.research.bombase.persistence;
 
 import com.github.packageurl.PackageURL;
+import com.philips.research.bombase.core.meta.Cursor;
 import com.philips.research.bombase.core.meta.MetaStore;
 import com.philips.research.bombase.core.meta.registry.Attribute;
 import com.philips.research.bombase.core.meta.registry.Field;
 import com.philips.research.bombase.core.meta.registry.Package;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 import pl.tlinkowski.annotation.basic.NullOr;
 
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Thread-safe in-memory store for package metadata.
+ * <p>
+ * Packages are indexed on the elements of their Package URL and on their modification timestamp.
+ * Index updates for the same package are serialized by a lock that is striped over the package ids.
+ */
 @Repository
+@ConditionalOnProperty(prefix = "bom-base", name = "store", havingValue = "memory", matchIfMissing = true)
 public class MemoryMetaStore implements MetaStore {
-    private final Map<PackageURL, Package> packages = new HashMap<>();
+    private static final int SPARSE_RATIO = 8;
+    private static final int LOCK_STRIPES = 64;
+
+    private final Map<PackageURL, Package> packages = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final ValueIndex types = new ValueIndex();
+    private final ValueIndex namespaces = new ValueIndex();
+    private final ValueIndex names = new ValueIndex();
+    private final ValueIndex versions = new ValueIndex();
+    private final Map<PackageURL, Timestamp> timestamps = new ConcurrentHashMap<>();
+    private final NavigableSet<Timestamp> timeline = new ConcurrentSkipListSet<>();
+
+    public MemoryMetaStore() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
 
     @Override
     public Package createPackage(PackageURL purl) {
-        return packages.computeIfAbsent(purl, (key) -> new Package(purl));
+        synchronized (lockFor(purl)) {
+            final @NullOr Package existing = packages.get(purl);
+            return (existing != null) ? existing : create(purl);
+        }
+    }
+
+    @Override
+    public Optional<Package> createPackageIfAbsent(PackageURL purl) {
+        synchronized (lockFor(purl)) {
+            return packages.containsKey(purl) ? Optional.empty() : Optional.of(create(purl));
+        }
+    }
+
+    /**
+     * Creates a package, while holding the lock for the package.
+     */
+    private Package create(PackageURL purl) {
+        final var pkg = new Package(purl);
+        packages.put(purl, pkg);
+        index(pkg);
+        created(pkg);
+        return pkg;
+    }
+
+    /**
+     * Notifies the creation of a package, while holding the lock for the package.
+     *
+     * @param pkg new package instance
+     */
+    void created(Package pkg) {
+    }
+
+    /**
+     * Adds a previously persisted package to the store.
+     *
+     * @param pkg restored package instance
+     */
+    void restore(Package pkg) {
+        synchronized (lockFor(pkg.getPurl())) {
+            packages.put(pkg.getPurl(), pkg);
+            index(pkg);
+        }
+    }
+
+    /**
+     * @return all stored packages
+     */
+    Collection<Package> getPackages() {
+        return Collections.unmodifiableCollection(packages.values());
     }
 
     @Override
@@ -31,20 +108,58 @@ public class MemoryMetaStore implements MetaStore {
     }
 
     @Override
-    public List<Package> latestScans(int limit) {
-        final var scans = new ArrayList<>(packages.values());
-        scans.sort(Comparator.comparing(Package::getLastUpdated));
-        Collections.reverse(scans);
-        return scans.subList(0, Math.min(limit, scans.size()));
+    public void updatePackage(Package pkg) {
+        synchronized (lockFor(pkg.getPurl())) {
+            if (packages.get(pkg.getPurl()) == pkg) {
+                updateTimeline(pkg);
+            }
+        }
     }
 
     @Override
-    public List<Package> findPackageVersions(PackageURL purl) {
-        return packages.values().stream()
-                .filter(p -> p.getPurl().equals(purl))
+    public List<Listing> latestScans(int limit, @NullOr Cursor after) {
+        return toListings(timelineAfter(after).stream(), limit);
+    }
+
+    private NavigableSet<Timestamp> timelineAfter(@NullOr Cursor cursor) {
+        return (cursor != null)
+                ? timeline.tailSet(new Timestamp(cursor.getUpdated(), cursor.getPurl()), false)
+                : timeline;
+    }
+
+    private List<Listing> toListings(Stream<Timestamp> stamps, int limit) {
+        return stamps
+                .map(this::toListing)
+                .filter(Objects::nonNull)
+                .limit(limit)
                 .collect(Collectors.toList());
     }
 
+    private @NullOr Listing toListing(Timestamp stamp) {
+        final @NullOr Package pkg = packages.get(stamp.purl);
+        return (pkg != null) ? new Listing(pkg, new Cursor(stamp.updated, stamp.purl)) : null;
+    }
+
+    @Override
+    public Stream<Package> streamPackages(@NullOr String type, @NullOr Instant since) {
+        var stamps = timeline.stream();
+        if (since != null) {
+            stamps = stamps.takeWhile(stamp -> !stamp.updated.isBefore(since));
+        }
+        if (type != null) {
+            stamps = stamps.filter(stamp -> type.equals(stamp.purl.getType()));
+        }
+        return stamps.map(stamp -> packages.get(stamp.purl))
+                .filter(Objects::nonNull);
+    }
+
+    @Override
+    public List<Package> findPackageVersions(PackageURL purl) {
+        return Optional.ofNullable(packages.get(purl))
+                .map(List::of)
+                .orElse(List.of());
+    }
+
     @Override
     //TODO Is this actually necessary (already)?
     public Attribute createField(Package pkg, Field field) {
@@ -52,21 +167,99 @@ public class MemoryMetaStore implements MetaStore {
     }
 
     @Override
-    public List<Package> findPackages(String type, String namespace, String name, String version) {
-        return packages.values().stream()
-                .filter(pkg -> {
-                    final var purl = pkg.getPurl();
-                    return notNull(purl.getType()).contains(type)
-                            && notNull(purl.getNamespace()).contains(namespace)
-                            && notNull(purl.getName()).contains(name)
-                            && notNull(purl.getVersion()).contains(version);
-                })
-                .sorted((l, r) -> r.getLastUpdated().compareTo(l.getLastUpdated()))
-                .limit(100)
-                .collect(Collectors.toList());
+    public List<Listing> findPackages(String type, String namespace, String name, String version, int limit, @NullOr Cursor after) {
+        @NullOr Set<PackageURL> candidates = null;
+        candidates = narrow(candidates, types, type);
+        candidates = narrow(candidates, namespaces, namespace);
+        candidates = narrow(candidates, names, name);
+        candidates = narrow(candidates, versions, version);
+
+        if (candidates == null) {
+            return latestScans(limit, after);
+        }
+        final var matches = candidates;
+        if (matches.size() * SPARSE_RATIO < packages.size()) {
+            final @NullOr Timestamp start = (after != null) ? new Timestamp(after.getUpdated(), after.getPurl()) : null;
+            return toListings(matches.stream()
+                    .map(timestamps::get)
+                    .filter(stamp -> stamp != null && (start == null || stamp.compareTo(start) > 0))
+                    .sorted(), limit);
+        }
+        // Walking the timeline is cheaper when a large fraction of all packages matches
+        return toListings(timelineAfter(after).stream().filter(stamp -> matches.contains(stamp.purl)), limit);
+    }
+
+    private @NullOr Set<PackageURL> narrow(@NullOr Set<PackageURL> candidates, ValueIndex index, String fragment) {
+        if (fragment.isEmpty()) {
+            return candidates;
+        }
+        final var matches = index.matching(fragment);
+        if (candidates == null) {
+            return matches;
+        }
+        final var smallest = (candidates.size() <= matches.size()) ? candidates : matches;
+        final var largest = (smallest == candidates) ? matches : candidates;
+        smallest.retainAll(largest);
+        return smallest;
     }
 
-    private String notNull(@NullOr String string) {
-        return string != null ? string : "";
+    private void index(Package pkg) {
+        final var purl = pkg.getPurl();
+        types.add(purl.getType(), purl);
+        namespaces.add(purl.getNamespace(), purl);
+        names.add(purl.getName(), purl);
+        versions.add(purl.getVersion(), purl);
+        updateTimeline(pkg);
+    }
+
+    private void updateTimeline(Package pkg) {
+        final var stamp = new Timestamp(pkg);
+        final @NullOr Timestamp previous = timestamps.put(pkg.getPurl(), stamp);
+        if (previous != null) {
+            timeline.remove(previous);
+        }
+        timeline.add(stamp);
+    }
+
+    private Object lockFor(PackageURL purl) {
+        return locks[Math.floorMod(purl.hashCode(), LOCK_STRIPES)];
+    }
+
+    /**
+     * Immutable modification timestamp of a package, ordered anti-chronologically.
+     */
+    private static final class Timestamp implements Comparable<Timestamp> {
+        private final Instant updated;
+        private final String key;
+        private final PackageURL purl;
+
+        Timestamp(Package pkg) {
+            this(pkg.getLastUpdated(), pkg.getPurl());
+        }
+
+        Timestamp(Instant updated, PackageURL purl) {
+            this.updated = updated;
+            this.purl = purl;
+            this.key = purl.canonicalize();
+        }
+
+        @Override
+        public int compareTo(Timestamp other) {
+            final var order = other.updated.compareTo(updated);
+            return (order != 0) ? order : key.compareTo(other.key);
+        }
+
+        @Override
+        public boolean equals(@NullOr Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Timestamp)) return false;
+            Timestamp timestamp = (Timestamp) o;
+            return updated.equals(timestamp.updated) && key.equals(timestamp.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(updated, key);
+        }
     }
 }
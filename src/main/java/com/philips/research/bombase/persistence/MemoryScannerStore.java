@@ -7,6 +7,7 @@ package com.philips.research.bombase.persistence;
 
 import com.philips.research.bombase.core.scanner.ScannerService;
 import com.philips.research.bombase.core.scanner.ScannerStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 
 import java.net.URI;
@@ -15,6 +16,7 @@ import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Repository
+@ConditionalOnProperty(prefix = "bom-base", name = "store", havingValue = "memory", matchIfMissing = true)
 public class MemoryScannerStore implements ScannerStore {
     private final Map<URI, ScannerService.ScanResult> scans = new ConcurrentHashMap<>();
 
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.persistence;
+
+import com.github.packageurl.PackageURL;
+import pl.tlinkowski.annotation.basic.NullOr;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe index of packages by the distinct values of a single Package URL element.
+ * <p>
+ * Values are additionally indexed on their n-grams (of up to 3 characters), so searching for a
+ * fragment only checks the distinct values that contain the least common n-gram of the fragment.
+ */
+class ValueIndex {
+    private static final int MAX_GRAM = 3;
+
+    private final Map<String, Set<PackageURL>> index = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> grams = new ConcurrentHashMap<>();
+
+    /**
+     * Adds a package to the index.
+     *
+     * @param value indexed element value
+     * @param purl  package id
+     */
+    void add(@NullOr String value, PackageURL purl) {
+        index.computeIfAbsent(notNull(value), (key) -> {
+            indexGrams(key);
+            return ConcurrentHashMap.newKeySet();
+        }).add(purl);
+    }
+
+    private void indexGrams(String value) {
+        for (int n = 1; n <= MAX_GRAM; n++) {
+            for (int i = 0; i + n <= value.length(); i++) {
+                grams.computeIfAbsent(value.substring(i, i + n), (key) -> ConcurrentHashMap.newKeySet()).add(value);
+            }
+        }
+    }
+
+    /**
+     * @return all packages with exactly the provided value
+     */
+    Set<PackageURL> get(@NullOr String value) {
+        return index.getOrDefault(notNull(value), Set.of());
+    }
+
+    /**
+     * @return all packages of which the value contains the provided fragment
+     */
+    Set<PackageURL> matching(String fragment) {
+        final var result = new HashSet<PackageURL>();
+        if (fragment.isEmpty()) {
+            index.values().forEach(result::addAll);
+            return result;
+        }
+        for (var value : candidatesFor(fragment)) {
+            if (value.contains(fragment)) {
+                result.addAll(index.getOrDefault(value, Set.of()));
+            }
+        }
+        return result;
+    }
+
+    private Set<String> candidatesFor(String fragment) {
+        final var n = Math.min(MAX_GRAM, fragment.length());
+        Set<String> candidates = Set.of();
+        for (int i = 0; i + n <= fragment.length(); i++) {
+            final var values = grams.getOrDefault(fragment.substring(i, i + n), Set.of());
+            if (values.isEmpty()) {
+                return Set.of();
+            }
+            if (i == 0 || values.size() < candidates.size()) {
+                candidates = values;
+            }
+        }
+        return candidates;
+    }
+
+    private String notNull(@NullOr String string) {
+        return string != null ? string : "";
+    }
+}
@@ -6,15 +6,24 @@
 package com.philips.research.bombase.controller;
 
 import com.github.packageurl.PackageURL;
+import com.philips.research.bombase.core.ImportRejectedException;
+import com.philips.research.bombase.core.InvalidCursorException;
 import com.philips.research.bombase.core.MetaService;
 import com.philips.research.bombase.core.MetaService.AttributeDto;
+import com.philips.research.bombase.core.MetaService.ImportDto;
+import com.philips.research.bombase.core.MetaService.PackageAttributesDto;
+import com.philips.research.bombase.core.MetaService.PageDto;
+import com.philips.research.bombase.core.UnknownImportException;
 import com.philips.research.bombase.core.UnknownPackageException;
+import org.json.JSONArray;
 import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.skyscreamer.jsonassert.JSONAssert;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -22,19 +31,26 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import pl.tlinkowski.annotation.basic.NullOr;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = {PackagesRoute.class, JacksonConfiguration.class})
@@ -44,6 +60,11 @@ class PackagesRouteTest {
     private static final String URL_PACKAGES = "/packages";
     private static final String URL_PACKAGE = URL_PACKAGES + "/{purl}";
     private static final String URL_DETAILS = URL_PACKAGE + "/details";
+    private static final String URL_IMPORT = URL_PACKAGES + "/import";
+    private static final String URL_IMPORT_JOB = URL_IMPORT + "/{id}";
+    private static final UUID JOB_ID = UUID.randomUUID();
+    private static final String CURSOR = "Cursor";
+    private static final String NEXT_CURSOR = "Next";
     private static final String TYPE = "type";
     private static final String NAMESPACE = "n%40mespace";
     private static final String NAME = "n%40me";
@@ -65,6 +86,13 @@ class PackagesRouteTest {
         return URLEncoder.encode(string, StandardCharsets.UTF_8);
     }
 
+    private PageDto page(@NullOr String next) {
+        final var page = new PageDto();
+        page.results = List.of(packageDto);
+        page.next = next;
+        return page;
+    }
+
     @BeforeEach
     void beforeEach() throws Exception {
         Mockito.reset(service);
@@ -97,31 +125,55 @@ class PackagesRouteTest {
 
     @Test
     void listsLatestScans() throws Exception {
-        when(service.latestScans()).thenReturn(List.of(packageDto));
+        when(service.latestScans(null, 100)).thenReturn(page(null));
 
         mvc.perform(get(URL_PACKAGES))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.results[0].id").value(encode(encode(PURL))))
                 .andExpect(jsonPath("$.results[0].purl").value(PURL))
-                .andExpect(jsonPath("$.results[0].attributes").doesNotExist());
+                .andExpect(jsonPath("$.results[0].attributes").doesNotExist())
+                .andExpect(jsonPath("$.next").doesNotExist());
+    }
+
+    @Test
+    void pagesThroughLatestScans() throws Exception {
+        when(service.latestScans(CURSOR, 10)).thenReturn(page(NEXT_CURSOR));
+
+        mvc.perform(get(URL_PACKAGES)
+                .queryParam("cursor", CURSOR)
+                .queryParam("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].purl").value(PURL))
+                .andExpect(jsonPath("$.next").value(NEXT_CURSOR));
+    }
+
+    @Test
+    void badRequest_invalidCursor() throws Exception {
+        when(service.latestScans(CURSOR, 100)).thenThrow(new InvalidCursorException(CURSOR));
+
+        mvc.perform(get(URL_PACKAGES)
+                .queryParam("cursor", CURSOR))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
     void searchesPackages() throws Exception {
-        when(service.search(TYPE, NAMESPACE, NAME, VERSION)).thenReturn(List.of(packageDto));
+        when(service.search(TYPE, NAMESPACE, NAME, VERSION, CURSOR, 100)).thenReturn(page(NEXT_CURSOR));
 
         mvc.perform(get(URL_PACKAGES)
                 .queryParam("type", TYPE)
                 .queryParam("ns", NAMESPACE)
                 .queryParam("name", NAME)
-                .queryParam("version", VERSION))
+                .queryParam("version", VERSION)
+                .queryParam("cursor", CURSOR))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.results[0].purl").value(PURL));
+                .andExpect(jsonPath("$.results[0].purl").value(PURL))
+                .andExpect(jsonPath("$.next").value(NEXT_CURSOR));
     }
 
     @Test
     void defaultsMissingSearchParametersToEmptyString() throws Exception {
-        when(service.search("", "", "", "")).thenReturn(List.of(packageDto));
+        when(service.search("", "", "", "", null, 100)).thenReturn(page(null));
 
         mvc.perform(get(URL_PACKAGES)
                 .queryParam("type", ""))
@@ -171,4 +223,130 @@ class PackagesRouteTest {
                 .content("{}").contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    void streamsDetailsOfMultiplePackages() throws Exception {
+        final var attribute = new AttributeDto();
+        attribute.score = SCORE;
+        final var dto = new PackageAttributesDto();
+        dto.purl = new PackageURL(PURL);
+        dto.attributes = Map.of(KEY, attribute);
+        when(service.getAllAttributes(List.of(new PackageURL(PURL), new PackageURL(PURL))))
+                .thenReturn(Stream.of(dto, dto));
+
+        final var result = mvc.perform(post(URL_PACKAGES + "/details")
+                .content(new JSONArray().put(PURL).put(PURL).toString()).contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        final var line = new JSONObject()
+                .put("purl", PURL)
+                .put("attributes", new JSONObject().put(KEY, new JSONObject().put("score", SCORE)));
+        final var lines = mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().split("\n");
+        assertThat(lines).hasSize(2);
+        JSONAssert.assertEquals(line.toString(), lines[0], true);
+    }
+
+    @Test
+    void exportsPackages() throws Exception {
+        final var dto = new PackageAttributesDto();
+        dto.purl = new PackageURL(PURL);
+        dto.updated = TIMESTAMP;
+        dto.attributes = Map.of();
+        when(service.exportPackages(TYPE, TIMESTAMP)).thenReturn(Stream.of(dto));
+
+        final var result = mvc.perform(get(URL_PACKAGES + "/export")
+                .queryParam("type", TYPE)
+                .queryParam("since", TIMESTAMP.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        final var line = new JSONObject()
+                .put("purl", PURL)
+                .put("updated", TIMESTAMP.toString())
+                .put("attributes", new JSONObject());
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().json(line.toString(), true));
+    }
+
+    @Test
+    void badRequest_detailsOfInvalidPackage() throws Exception {
+        mvc.perform(post(URL_PACKAGES + "/details")
+                .content(new JSONArray().put("Not a purl").toString()).contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Nested
+    class ImportPackages {
+        private final ImportDto importDto = new ImportDto();
+
+        @BeforeEach
+        void beforeEach() {
+            importDto.id = JOB_ID;
+            importDto.total = 2;
+        }
+
+        @Test
+        void importsPackageList() throws Exception {
+            when(service.importPackages(any())).thenReturn(importDto);
+            final var json = new JSONArray().put(PURL).put("Not a purl");
+
+            mvc.perform(post(URL_IMPORT)
+                    .content(json.toString()).contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isAccepted())
+                    .andExpect(jsonPath("$.id").value(JOB_ID.toString()))
+                    .andExpect(jsonPath("$.total").value(2))
+                    .andExpect(jsonPath("$.invalid[0]").value("Not a purl"));
+
+            verify(service).importPackages(List.of(new PackageURL(PURL)));
+        }
+
+        @Test
+        void importsPackageStream() throws Exception {
+            when(service.importPackages(any())).thenReturn(importDto);
+            final var other = "pkg:npm/other@1.0";
+            final var body = PURL + "\n\n\"" + other + "\"\n" + new JSONObject().put("purl", PURL) + "\n{broken\n";
+
+            mvc.perform(post(URL_IMPORT)
+                    .content(body).contentType(MediaType.APPLICATION_NDJSON))
+                    .andExpect(status().isAccepted())
+                    .andExpect(jsonPath("$.id").value(JOB_ID.toString()))
+                    .andExpect(jsonPath("$.invalid[0]").value("{broken"));
+
+            verify(service).importPackages(List.of(new PackageURL(PURL), new PackageURL(other), new PackageURL(PURL)));
+        }
+
+        @Test
+        void getsImportProgress() throws Exception {
+            importDto.processed = 1;
+            when(service.getImport(JOB_ID)).thenReturn(importDto);
+
+            mvc.perform(get(URL_IMPORT_JOB, JOB_ID))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.processed").value(1))
+                    .andExpect(jsonPath("$.done").value(false))
+                    .andExpect(jsonPath("$.invalid").doesNotExist());
+        }
+
+        @Test
+        void unavailable_rejectedImport() throws Exception {
+            when(service.importPackages(any())).thenThrow(new ImportRejectedException(1));
+            final var json = new JSONArray().put(PURL);
+
+            mvc.perform(post(URL_IMPORT)
+                    .content(json.toString()).contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isServiceUnavailable());
+        }
+
+        @Test
+        void notFound_unknownImport() throws Exception {
+            when(service.getImport(JOB_ID)).thenThrow(new UnknownImportException(JOB_ID));
+
+            mvc.perform(get(URL_IMPORT_JOB, JOB_ID))
+                    .andExpect(status().isNotFound());
+        }
+    }
 }
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.controller;
+
+import com.philips.research.bombase.core.scanner.ScannerService;
+import com.philips.research.bombase.core.scanner.ScannerService.Priority;
+import com.philips.research.bombase.core.scanner.ScannerService.ScanJobDto;
+import com.philips.research.bombase.core.scanner.ScannerService.ScanState;
+import com.philips.research.bombase.core.scanner.UnknownScanException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = {ScansRoute.class, JacksonConfiguration.class})
+@AutoConfigureMockMvc
+@ExtendWith({SpringExtension.class, MockitoExtension.class})
+public class ScansRouteTest {
+    private static final String SCANS_URL = "/scans";
+    private static final String SCAN_URL = SCANS_URL + "/{id}";
+    private static final UUID JOB_ID = UUID.randomUUID();
+    private static final URI LOCATION = URI.create("https://example.com/source");
+
+    @Autowired
+    private MockMvc mvc;
+
+    @MockBean
+    private ScannerService service;
+
+    @BeforeEach
+    void beforeEach() {
+        Mockito.reset(service);
+    }
+
+    private ScanJobDto scanJob() {
+        final var dto = new ScanJobDto();
+        dto.id = JOB_ID;
+        dto.location = LOCATION;
+        dto.priority = Priority.BATCH;
+        dto.state = ScanState.RUNNING;
+        dto.created = Instant.now();
+        dto.started = Instant.now();
+        return dto;
+    }
+
+    @Test
+    void listsScans() throws Exception {
+        when(service.getScans()).thenReturn(List.of(scanJob()));
+
+        mvc.perform(get(SCANS_URL))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(JOB_ID.toString()))
+                .andExpect(jsonPath("$[0].location").value(LOCATION.toString()))
+                .andExpect(jsonPath("$[0].priority").value("batch"))
+                .andExpect(jsonPath("$[0].state").value("running"))
+                .andExpect(jsonPath("$[0].finished").doesNotExist());
+    }
+
+    @Test
+    void readsScan() throws Exception {
+        when(service.getScan(JOB_ID)).thenReturn(scanJob());
+
+        mvc.perform(get(SCAN_URL, JOB_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("running"));
+    }
+
+    @Test
+    void notFound_unknownScan() throws Exception {
+        when(service.getScan(JOB_ID)).thenThrow(new UnknownScanException(JOB_ID));
+
+        mvc.perform(get(SCAN_URL, JOB_ID))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void cancelsScan() throws Exception {
+        mvc.perform(delete(SCAN_URL, JOB_ID))
+                .andExpect(status().isNoContent());
+
+        verify(service).cancelScan(JOB_ID);
+    }
+
+    @Test
+    void notFound_cancelUnknownScan() throws Exception {
+        doThrow(new UnknownScanException(JOB_ID)).when(service).cancelScan(JOB_ID);
+
+        mvc.perform(delete(SCAN_URL, JOB_ID))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.downloader;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DownloadLocationTest {
+    private static String normalize(String location) {
+        return DownloadLocation.normalize(URI.create(location)).toString();
+    }
+
+    @Test
+    void normalizesSchemeAndHost() {
+        assertThat(normalize("HTTPS://Example.COM/Path/File.tgz")).isEqualTo("https://example.com/Path/File.tgz");
+        assertThat(normalize("https://user@Example.com:443/file")).isEqualTo("https://user@example.com/file");
+        assertThat(normalize("https://example.com:8443/file")).isEqualTo("https://example.com:8443/file");
+    }
+
+    @Test
+    void treatsHttpAsHttps() {
+        assertThat(normalize("http://example.com:80/file?x=1#sub/path")).isEqualTo("https://example.com/file?x=1#sub/path");
+        assertThat(normalize("git+http://example.com/repo@1.0")).isEqualTo("git+https://example.com/repo@1.0");
+    }
+
+    @Test
+    void stripsGitRepositorySuffix() {
+        assertThat(normalize("git+https://github.com/owner/repo.git@v1.0#path")).isEqualTo("git+https://github.com/owner/repo@v1.0#path");
+        assertThat(normalize("git+https://github.com/owner/repo/")).isEqualTo("git+https://github.com/owner/repo");
+        assertThat(normalize("https://example.com/archive.git")).isEqualTo("https://example.com/archive.git");
+    }
+
+    @Test
+    void keepsOpaqueLocations() {
+        assertThat(normalize("file:archive.zip")).isEqualTo("file:archive.zip");
+    }
+}
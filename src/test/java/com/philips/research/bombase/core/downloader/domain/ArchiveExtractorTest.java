@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.downloader.domain;
+
+import com.philips.research.bombase.core.support.ShellCommand;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ArchiveExtractorTest {
+    private static final String LONG_NAME = "very-long-directory-name/".repeat(6) + "file.txt";
+
+    private final ArchiveExtractor extractor = new ArchiveExtractor();
+
+    @TempDir
+    Path tempDir;
+
+    private static byte[] zip(String... names) throws IOException {
+        final var bytes = new ByteArrayOutputStream();
+        try (var zip = new ZipOutputStream(bytes)) {
+            for (var name : names) {
+                zip.putNextEntry(new ZipEntry(name));
+                if (!name.endsWith("/")) {
+                    zip.write(name.getBytes(StandardCharsets.UTF_8));
+                }
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    void supportsCommonArchiveFormats() {
+        assertThat(ArchiveExtractor.isSupported("package.zip")).isTrue();
+        assertThat(ArchiveExtractor.isSupported("package.JAR")).isTrue();
+        assertThat(ArchiveExtractor.isSupported("package-1.0-py3-none-any.whl")).isTrue();
+        assertThat(ArchiveExtractor.isSupported("Package.1.0.nupkg")).isTrue();
+        assertThat(ArchiveExtractor.isSupported("package-1.0.tar.gz")).isTrue();
+        assertThat(ArchiveExtractor.isSupported("package-1.0.tgz")).isTrue();
+        assertThat(ArchiveExtractor.isSupported("package-1.0.tar")).isTrue();
+        assertThat(ArchiveExtractor.isSupported("package-1.0.tar.bz2")).isFalse();
+        assertThat(ArchiveExtractor.isSupported("index.html")).isFalse();
+    }
+
+    @Test
+    void extractsZipArchive() throws IOException {
+        final var target = tempDir.resolve("archive.zip");
+
+        extractor.extract(new ByteArrayInputStream(zip("dir/", "dir/file.txt", "top.txt")), "archive.zip", target);
+
+        assertThat(target.resolve("dir/file.txt")).hasContent("dir/file.txt");
+        assertThat(target.resolve("top.txt")).hasContent("top.txt");
+    }
+
+    @Test
+    void extractsTarGzArchive() throws IOException {
+        final var source = Files.createDirectories(tempDir.resolve("source"));
+        Files.createDirectories(source.resolve(LONG_NAME).getParent());
+        Files.writeString(source.resolve(LONG_NAME), "Long");
+        Files.writeString(source.resolve("short.txt"), "Short");
+        final var archive = tempDir.resolve("archive.tar.gz");
+        new ShellCommand("tar").setDirectory(source.toFile())
+                .execute("-czf", archive, "short.txt", "very-long-directory-name");
+        final var target = tempDir.resolve("target");
+
+        try (var stream = Files.newInputStream(archive)) {
+            extractor.extract(stream, "archive.tar.gz", target);
+        }
+
+        assertThat(target.resolve("short.txt")).hasContent("Short");
+        assertThat(target.resolve(LONG_NAME)).hasContent("Long");
+    }
+
+    @Test
+    void throws_entryOutsideTargetDirectory() {
+        final var target = tempDir.resolve("target");
+
+        assertThatThrownBy(() -> extractor.extract(new ByteArrayInputStream(zip("../evil.txt")), "evil.zip", target))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("outside");
+        assertThat(tempDir.resolve("evil.txt")).doesNotExist();
+    }
+}
@@ -8,12 +8,19 @@ package com.philips.research.bombase.core.downloader.domain;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.util.FileSystemUtils;
 
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -59,6 +66,20 @@ class DownloadCacheTest {
         verify(downloader).download(workDir.getParent(), BASE_LOCATION);
     }
 
+    @Test
+    void downloadsSubPathsSeparately_sparseDownloader() {
+        final var other = BASE_LOCATION.resolve("#other/path");
+        when(downloader.isSparse(any(URI.class))).thenReturn(true);
+        when(downloader.download(any(Path.class), any(URI.class))).thenAnswer((answer) -> answer.getArgument(0));
+
+        final var first = cache.obtain(LOCATION);
+        final var second = cache.obtain(other);
+
+        assertThat(second).isNotEqualTo(first);
+        verify(downloader).download(first, LOCATION);
+        verify(downloader).download(second, other);
+    }
+
     @Test
     void reusesCache() {
         final var first = cache.obtain(LOCATION);
@@ -83,6 +104,93 @@ class DownloadCacheTest {
         assertThat(workDir.toFile()).doesNotExist();
     }
 
+    @Test
+    void evictsLeastRecentlyUsedEntry() {
+        final var workDir = cache.obtain(LOCATION);
+        cache.release(LOCATION);
+        for (int i = 0; i < CACHE_SIZE + 1; i++) {
+            final var location = URI.create("https://example.com/" + i);
+            cache.obtain(location);
+            cache.release(location);
+            cache.obtain(LOCATION);
+            cache.release(LOCATION);
+        }
+
+        assertThat(workDir.toFile()).exists();
+    }
+
+    @Test
+    void keepsEntryInUse() {
+        final var workDir = cache.obtain(LOCATION);
+        for (int i = 0; i < CACHE_SIZE + 1; i++) {
+            final var location = URI.create("https://example.com/" + i);
+            cache.obtain(location);
+            cache.release(location);
+        }
+
+        assertThat(workDir.toFile()).exists();
+    }
+
+    @Test
+    void downloadsOnce_concurrentClaims() throws Exception {
+        final var started = new CountDownLatch(1);
+        final var proceed = new CountDownLatch(1);
+        when(downloader.download(any(Path.class), eq(BASE_LOCATION))).thenAnswer((answer) -> {
+            started.countDown();
+            assertThat(proceed.await(5, TimeUnit.SECONDS)).isTrue();
+            return answer.getArgument(0);
+        });
+        final var executor = Executors.newFixedThreadPool(4);
+        try {
+            final var futures = new ArrayList<Future<Path>>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> cache.obtain(LOCATION)));
+            }
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            proceed.countDown();
+
+            final var first = futures.get(0).get(5, TimeUnit.SECONDS);
+            for (var future : futures) {
+                assertThat(future.get(5, TimeUnit.SECONDS)).isEqualTo(first);
+            }
+            verify(downloader, times(1)).download(any(Path.class), any(URI.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void evictsEntries_exceedingMaxBytes() throws Exception {
+        final var limited = new DownloadCache(downloader, TEMP_DIR, CACHE_SIZE, 150);
+        when(downloader.download(any(Path.class), any(URI.class))).thenAnswer((answer) -> {
+            final var path = (Path) answer.getArgument(0);
+            Files.write(path.resolve("file"), new byte[100]);
+            return path;
+        });
+        final var workDir = limited.obtain(LOCATION);
+        limited.release(LOCATION);
+        final var other = URI.create("https://example.com/other");
+
+        limited.obtain(other);
+
+        assertThat(workDir.toFile()).doesNotExist();
+        assertThat(limited.getBytes()).isEqualTo(100);
+        assertThat(limited.getEntries()).isEqualTo(1);
+    }
+
+    @Test
+    void countsHitsAndMisses() {
+        cache.obtain(LOCATION);
+        cache.release(LOCATION);
+        cache.obtain(LOCATION);
+        cache.release(LOCATION);
+        cache.obtain(LOCATION);
+        cache.release(LOCATION);
+
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.getHits()).isEqualTo(2);
+    }
+
     @Test
     void dropsEntry_downloadException() {
         when(downloader.download(any(Path.class), any(URI.class))).thenThrow(new IllegalStateException("Download issue"));
@@ -92,4 +200,92 @@ class DownloadCacheTest {
 
         verify(downloader, times(2)).download(any(), any());
     }
+
+    @Test
+    void downloadsIntoSeparateDirectory_afterFailedDownload() {
+        final var stores = new ArrayList<Path>();
+        when(downloader.download(any(Path.class), any(URI.class))).thenAnswer((answer) -> {
+            stores.add(answer.getArgument(0));
+            throw new IllegalStateException("Download issue");
+        });
+
+        assertThatThrownBy(() -> cache.obtain(LOCATION));
+        assertThatThrownBy(() -> cache.obtain(LOCATION));
+
+        assertThat(stores).hasSize(2);
+        assertThat(stores.get(0)).isNotEqualTo(stores.get(1));
+    }
+
+    @Nested
+    class Persistent {
+        @TempDir
+        Path directory;
+
+        private DownloadCache persistentCache() {
+            return DownloadCache.persistent(downloader, directory, CACHE_SIZE, Long.MAX_VALUE);
+        }
+
+        @Test
+        void reusesDownloadAfterRestart() {
+            final var first = persistentCache();
+            final var workDir = first.obtain(LOCATION);
+            first.release(LOCATION);
+            first.shutdown();
+
+            final var restarted = persistentCache();
+
+            assertThat(restarted.getEntries()).isEqualTo(1);
+            assertThat(restarted.obtain(LOCATION)).isEqualTo(workDir);
+            assertThat(workDir.toFile()).exists();
+            verify(downloader, times(1)).download(any(Path.class), any(URI.class));
+        }
+
+        @Test
+        void downloadsAgain_missingDownload() throws Exception {
+            final var first = persistentCache();
+            final var workDir = first.obtain(LOCATION);
+            first.release(LOCATION);
+            FileSystemUtils.deleteRecursively(workDir);
+
+            final var restarted = persistentCache();
+
+            assertThat(restarted.obtain(LOCATION)).isEqualTo(workDir);
+            assertThat(workDir.toFile()).exists();
+            verify(downloader, times(2)).download(any(Path.class), any(URI.class));
+        }
+
+        @Test
+        void downloadsAgainFromOriginalSource_missingDownload() throws Exception {
+            final var source = URI.create("http://example.com/download");
+            when(downloader.download(any(Path.class), eq(source))).thenAnswer((answer) -> {
+                final var download = ((Path) answer.getArgument(0)).resolve(DOWNLOAD);
+                Files.createDirectories(download);
+                return download;
+            });
+            final var first = persistentCache();
+            final var workDir = first.obtain(source);
+            first.release(source);
+            FileSystemUtils.deleteRecursively(workDir);
+
+            persistentCache().obtain(source);
+
+            verify(downloader, times(2)).download(any(Path.class), eq(source));
+        }
+
+        @Test
+        void removesUnindexedDirectories() throws Exception {
+            final var orphan = Files.createDirectory(directory.resolve("orphan"));
+
+            persistentCache();
+
+            assertThat(orphan.toFile()).doesNotExist();
+        }
+
+        @Test
+        void ignoresCorruptIndex() throws Exception {
+            Files.writeString(directory.resolve("index.properties"), "garbage=\\u00");
+
+            assertThat(persistentCache().getEntries()).isZero();
+        }
+    }
 }
@@ -7,6 +7,7 @@ package com.philips.research.bombase.core.downloader.domain;
 
 import com.philips.research.bombase.core.downloader.DownloadException;
 import com.philips.research.bombase.core.downloader.DownloadService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 
 import java.net.URI;
@@ -27,6 +28,18 @@ class DownloadInteractorTest {
         assertThat(found).isTrue();
     }
 
+    @Test
+    void exposesCacheMetrics() {
+        final var registry = new SimpleMeterRegistry();
+
+        ((DownloadInteractor) interactor).bindTo(registry);
+
+        assertThat(registry.get("bombase.download.cache.hit.ratio").gauge().value()).isZero();
+        assertThat(registry.get("bombase.download.cache.size").gauge().value()).isZero();
+        assertThat(registry.get("bombase.download.cache.entries").gauge().value()).isZero();
+        assertThat(registry.get("bombase.download.cache.requests").tag("result", "miss").functionCounter().count()).isZero();
+    }
+
     @Test
     void throws_downloadFails() {
         //noinspection ConstantConditions
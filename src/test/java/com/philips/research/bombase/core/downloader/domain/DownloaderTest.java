@@ -60,4 +60,15 @@ class DownloaderTest {
 
         assertThat(directory).isEqualTo(destinationDir);
     }
+
+    @Test
+    void indicatesSparseDownloads() {
+        when(mockHandler.isSparse()).thenReturn(true);
+
+        downloader.register(TOOL, mockHandler);
+
+        assertThat(downloader.isSparse(URI.create(TOOL + "+" + LOCATION))).isTrue();
+        assertThat(downloader.isSparse(LOCATION)).isFalse();
+        assertThat(downloader.isSparse(URI.create("unknown+" + LOCATION))).isFalse();
+    }
 }
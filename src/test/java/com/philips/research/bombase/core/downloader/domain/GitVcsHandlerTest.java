@@ -6,18 +6,32 @@
 package com.philips.research.bombase.core.downloader.domain;
 
 import com.philips.research.bombase.core.downloader.DownloadException;
+import com.philips.research.bombase.core.support.ShellCommand;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.FileSystemUtils;
 
 import java.io.IOException;
 import java.net.URI;
 import java.nio.file.Files;
+import java.nio.file.Path;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class GitVcsHandlerTest extends VcsHandlerTestBase {
-    final VcsHandler handler = new GitVcsHandler();
+    @TempDir
+    Path mirrors;
+
+    VcsHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        handler = new GitVcsHandler(mirrors);
+    }
 
     private void assertHash(String s) throws IOException {
         assertThat(Files.readString(tempDir.resolve(".git").resolve("HEAD")))
@@ -29,7 +43,7 @@ class GitVcsHandlerTest extends VcsHandlerTestBase {
         final var path = handler.download(tempDir, URI.create("https://github.com/excalith%2Fgit-cheats.git@v1.0.0#some%2Fpath"));
 
         assertHash("61b307521005e98474243b8546a62a56e8e561b2");
-        assertThat(path).isEqualTo(tempDir);
+        assertThat(path).isEqualTo(tempDir.resolve("some/path"));
     }
 
     @Test
@@ -68,4 +82,220 @@ class GitVcsHandlerTest extends VcsHandlerTestBase {
                 .isInstanceOf(DownloadException.class)
                 .hasMessageContaining("Checkout");
     }
+
+    @Nested
+    class LocalRepository {
+        @TempDir
+        Path origin;
+
+        private ShellCommand git;
+
+        @BeforeEach
+        void beforeEach() throws IOException {
+            git = new ShellCommand("git").setDirectory(origin.toFile());
+            git.execute("init", "--quiet");
+            commit("First");
+            git.execute("tag", "v1.0.0");
+            commit("Second");
+            git.execute("tag", "2.0");
+        }
+
+        private void commit(String message) throws IOException {
+            Files.writeString(origin.resolve("file.txt"), message);
+            git.execute("add", "file.txt")
+                    .execute("-c", "user.name=Test", "-c", "user.email=test@example.com",
+                            "commit", "--quiet", "-m", message);
+        }
+
+        private String hashOf(String ref) throws IOException {
+            return Files.readString(origin.resolve(".git").resolve(ref)).strip();
+        }
+
+        private URI location(String version) {
+            return URI.create(origin.toUri() + (version.isEmpty() ? "" : "@" + version));
+        }
+
+        @Test
+        void checksOutTag() throws IOException {
+            handler.download(tempDir, location("v1.0.0"));
+
+            assertHash(hashOf("refs/tags/v1.0.0"));
+            assertThat(tempDir.resolve("file.txt")).hasContent("First");
+        }
+
+        @Test
+        void checksOutUsingAlternativeVersionTag() throws IOException {
+            handler.download(tempDir, location("1.0.0"));
+
+            assertHash(hashOf("refs/tags/v1.0.0"));
+        }
+
+        @Test
+        void checksOutByCommitHash() throws IOException {
+            final var hash = hashOf("refs/tags/v1.0.0");
+
+            handler.download(tempDir, location(hash.substring(0, 7)));
+
+            assertHash(hash);
+        }
+
+        @Test
+        void prefersTagOverAbbreviatedCommitHash() throws IOException {
+            final var version = hashOf("refs/tags/v1.0.0").substring(0, 7);
+            git.execute("tag", version, "2.0");
+            handler.download(tempDir, location("v1.0.0"));
+            final var other = Files.createTempDirectory(tempDir.getParent(), "other");
+
+            try {
+                handler.download(other, location(version));
+
+                assertThat(other.resolve("file.txt")).hasContent("Second");
+            } finally {
+                FileSystemUtils.deleteRecursively(other);
+            }
+        }
+
+        @Test
+        void checksOutDefaultBranch() throws IOException {
+            handler.download(tempDir, location(""));
+
+            assertThat(tempDir.resolve("file.txt")).hasContent("Second");
+        }
+
+        @Test
+        void checksOutKnownVersionsFromMirror() throws IOException {
+            final var hash = hashOf("refs/tags/v1.0.0");
+            handler.download(tempDir, location("v1.0.0"));
+            final var other = Files.createTempDirectory(tempDir.getParent(), "other");
+            final var location = location("1.0.0");
+            FileSystemUtils.deleteRecursively(origin.resolve(".git"));
+
+            try {
+                handler.download(other, location);
+
+                assertThat(Files.readString(other.resolve(".git").resolve("HEAD"))).isEqualTo(hash + "\n");
+            } finally {
+                FileSystemUtils.deleteRecursively(other);
+            }
+        }
+
+        @Test
+        void checksOutUsingReleaseTagConventions() throws IOException {
+            git.execute("tag", "release-3.0", "v1.0.0");
+            git.execute("tag", origin.getFileName() + "-4.0", "v1.0.0");
+
+            handler.download(tempDir, location("3.0"));
+            final var other = Files.createTempDirectory(tempDir.getParent(), "other");
+            try {
+                handler.download(other, location("4.0"));
+
+                assertHash(hashOf("refs/tags/v1.0.0"));
+                assertThat(Files.readString(other.resolve(".git").resolve("HEAD"))).isEqualTo(hashOf("refs/tags/v1.0.0") + "\n");
+            } finally {
+                FileSystemUtils.deleteRecursively(other);
+            }
+        }
+
+        @Test
+        void checksOutBranch() throws IOException {
+            git.execute("branch", "maintenance", "v1.0.0");
+
+            handler.download(tempDir, location("maintenance"));
+
+            assertHash(hashOf("refs/tags/v1.0.0"));
+        }
+
+        @Test
+        void fetchesUnknownVersionsIntoMirror() throws IOException {
+            handler.download(tempDir, location("v1.0.0"));
+            commit("Third");
+            git.execute("tag", "3.0");
+            final var other = Files.createTempDirectory(tempDir.getParent(), "other");
+
+            try {
+                handler.download(other, location("3.0"));
+
+                assertThat(other.resolve("file.txt")).hasContent("Third");
+            } finally {
+                FileSystemUtils.deleteRecursively(other);
+            }
+        }
+
+        @Test
+        void checksOutOnlyFilesOfSubPath() throws IOException {
+            Files.createDirectories(origin.resolve("sub/path"));
+            Files.writeString(origin.resolve("sub/path/sub.txt"), "Sub");
+            git.execute("add", "sub")
+                    .execute("-c", "user.name=Test", "-c", "user.email=test@example.com",
+                            "commit", "--quiet", "-m", "Sub path");
+
+            final var path = handler.download(tempDir, URI.create(location("") + "#sub/path"));
+
+            assertThat(path).isEqualTo(tempDir.resolve("sub/path"));
+            assertThat(path.resolve("sub.txt")).hasContent("Sub");
+            assertThat(tempDir.resolve("file.txt")).doesNotExist();
+        }
+
+        @Test
+        void fetchesFileContentsOnCheckout_partialMirror() throws IOException {
+            git.execute("config", "uploadpack.allowFilter", "true");
+
+            handler.download(tempDir, location("v1.0.0"));
+
+            assertHash(hashOf("refs/tags/v1.0.0"));
+            assertThat(tempDir.resolve("file.txt")).hasContent("First");
+        }
+
+        @Test
+        void reusesFileContentsFromMirror_partialMirror() throws IOException {
+            git.execute("config", "uploadpack.allowFilter", "true");
+            handler.download(tempDir, location("v1.0.0"));
+            final var other = Files.createTempDirectory(tempDir.getParent(), "other");
+            final var location = location("v1.0.0");
+            FileSystemUtils.deleteRecursively(origin.resolve(".git"));
+
+            try {
+                handler.download(other, location);
+
+                assertThat(other.resolve("file.txt")).hasContent("First");
+            } finally {
+                FileSystemUtils.deleteRecursively(other);
+            }
+        }
+
+        @Test
+        void removesTemporaryMirrorsOnShutdown() {
+            final var directory = mirrors.resolve("temporary");
+            final var temporary = new GitVcsHandler(directory, true);
+            temporary.download(tempDir, location("v1.0.0"));
+
+            temporary.shutdown();
+
+            assertThat(directory).doesNotExist();
+        }
+
+        @Test
+        void keepsMirrorsOnShutdown() {
+            final var persistent = new GitVcsHandler(mirrors);
+            persistent.download(tempDir, location("v1.0.0"));
+
+            persistent.shutdown();
+
+            assertThat(mirrors).isNotEmptyDirectory();
+        }
+
+        @Test
+        void throws_subPathOutsideRepository() {
+            assertThatThrownBy(() -> handler.download(tempDir, URI.create(location("") + "#../other")))
+                    .isInstanceOf(DownloadException.class)
+                    .hasMessageContaining("outside");
+        }
+
+        @Test
+        void throws_unknownVersion() {
+            assertThatThrownBy(() -> handler.download(tempDir, location("unknown")))
+                    .isInstanceOf(DownloadException.class)
+                    .hasMessageContaining("Checkout");
+        }
+    }
 }
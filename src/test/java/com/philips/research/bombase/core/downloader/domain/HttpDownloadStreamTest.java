@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.downloader.domain;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class HttpDownloadStreamTest {
+    private static final String CONTENT = "0123456789".repeat(1000);
+    private static final String ETAG = "\"etag\"";
+
+    private final MockWebServer mockServer = new MockWebServer();
+    private final HttpClient client = HttpDownloadStream.createClient();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        mockServer.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        mockServer.shutdown();
+    }
+
+    private URI uri(String path) {
+        return mockServer.url(path).uri();
+    }
+
+    private String read(InputStream stream) throws IOException {
+        try (stream) {
+            return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    void downloadsResource() throws Exception {
+        mockServer.enqueue(new MockResponse().setBody(CONTENT));
+
+        assertThat(read(HttpDownloadStream.open(client, uri("/file")))).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void followsRedirects() throws Exception {
+        mockServer.enqueue(new MockResponse().setResponseCode(302).setHeader("Location", "/other"));
+        mockServer.enqueue(new MockResponse().setResponseCode(307).setHeader("Location", "/final"));
+        mockServer.enqueue(new MockResponse().setBody(CONTENT));
+
+        assertThat(read(HttpDownloadStream.open(client, uri("/file")))).isEqualTo(CONTENT);
+        mockServer.takeRequest();
+        mockServer.takeRequest();
+        assertThat(mockServer.takeRequest().getPath()).isEqualTo("/final");
+    }
+
+    @Test
+    void reusesConnection() throws Exception {
+        mockServer.enqueue(new MockResponse().setBody(CONTENT));
+        mockServer.enqueue(new MockResponse().setBody(CONTENT));
+
+        read(HttpDownloadStream.open(client, uri("/first")));
+        read(HttpDownloadStream.open(client, uri("/second")));
+
+        mockServer.takeRequest();
+        assertThat(mockServer.takeRequest().getSequenceNumber()).isEqualTo(1);
+    }
+
+    @Test
+    void throws_unsuccessfulResponse() {
+        mockServer.enqueue(new MockResponse().setResponseCode(404));
+
+        assertThatThrownBy(() -> HttpDownloadStream.open(client, uri("/file")))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("404");
+    }
+
+    @Test
+    void resumesInterruptedDownload() throws Exception {
+        mockServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                final var range = request.getHeader("Range");
+                if (range == null) {
+                    return new MockResponse().setBody(CONTENT)
+                            .setHeader("Accept-Ranges", "bytes")
+                            .setHeader("ETag", ETAG)
+                            .setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY);
+                }
+                final var from = Integer.parseInt(range.replaceAll("\\D", ""));
+                return new MockResponse().setResponseCode(206).setBody(CONTENT.substring(from));
+            }
+        });
+
+        assertThat(read(HttpDownloadStream.open(client, uri("/file")))).isEqualTo(CONTENT);
+        mockServer.takeRequest();
+        assertThat(mockServer.takeRequest().getHeader("If-Range")).isEqualTo(ETAG);
+    }
+
+    @Test
+    void resumesStalledDownload() throws Exception {
+        final var half = CONTENT.length() / 2;
+        mockServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                final var range = request.getHeader("Range");
+                if (range == null) {
+                    return new MockResponse().setBody(CONTENT)
+                            .setHeader("Accept-Ranges", "bytes")
+                            .setHeader("ETag", ETAG)
+                            .throttleBody(half, 2, TimeUnit.SECONDS);
+                }
+                final var from = Integer.parseInt(range.replaceAll("\\D", ""));
+                return new MockResponse().setResponseCode(206).setBody(CONTENT.substring(from));
+            }
+        });
+
+        final var stream = HttpDownloadStream.open(client, uri("/file"), Duration.ofMillis(300));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThat(read(stream)).isEqualTo(CONTENT));
+        mockServer.takeRequest();
+        assertThat(mockServer.takeRequest().getHeader("Range")).isEqualTo("bytes=" + half + '-');
+    }
+
+    @Test
+    void throws_stalledDownloadWithoutRangeSupport() throws Exception {
+        mockServer.enqueue(new MockResponse().setBody(CONTENT)
+                .throttleBody(10, 2, TimeUnit.SECONDS));
+
+        final var stream = HttpDownloadStream.open(client, uri("/file"), Duration.ofMillis(300));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThatThrownBy(() -> read(stream))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("No data received"));
+    }
+
+    @Test
+    void throws_interruptedDownloadWithoutRangeSupport() {
+        mockServer.enqueue(new MockResponse().setBody(CONTENT)
+                .setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY));
+
+        assertThatThrownBy(() -> read(HttpDownloadStream.open(client, uri("/file"))))
+                .isInstanceOf(IOException.class);
+        assertThat(mockServer.getRequestCount()).isEqualTo(1);
+    }
+}
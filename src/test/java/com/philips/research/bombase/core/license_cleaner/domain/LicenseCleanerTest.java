@@ -13,6 +13,7 @@ import com.philips.research.bombase.core.meta.registry.PackageAttributeEditor;
 import com.philips.research.bombase.core.meta.registry.Trust;
 import com.philips.research.bombase.core.scanner.ScannerException;
 import com.philips.research.bombase.core.scanner.ScannerService;
+import com.philips.research.bombase.core.scanner.ScannerService.Priority;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
@@ -80,7 +81,7 @@ class LicenseCleanerTest {
         @Test
         void replacesUrlByScanningLicenses() {
             editor.update(Field.DECLARED_LICENSE, TRUST, PREFIX + LICENSE_URL + POSTFIX);
-            when(scanner.scanLicenses(URI.create(LICENSE_URL))).thenReturn(List.of(LICENSE));
+            when(scanner.scanLicenses(URI.create(LICENSE_URL), Priority.INTERACTIVE)).thenReturn(List.of(LICENSE));
 
             task.accept(editor);
 
@@ -100,7 +101,7 @@ class LicenseCleanerTest {
         @Test
         void replacesMultipleUrls() {
             editor.update(Field.DECLARED_LICENSE, TRUST, LICENSE_URL + " AND " + LICENSE_URL);
-            when(scanner.scanLicenses(URI.create(LICENSE_URL))).thenReturn(List.of(LICENSE));
+            when(scanner.scanLicenses(URI.create(LICENSE_URL), Priority.INTERACTIVE)).thenReturn(List.of(LICENSE));
 
             task.accept(editor);
 
@@ -110,7 +111,7 @@ class LicenseCleanerTest {
         @Test
         void ignoresFailedLicenseScans() {
             editor.update(Field.DECLARED_LICENSE, TRUST, LICENSE_URL);
-            when(scanner.scanLicenses(URI.create(LICENSE_URL))).thenThrow(new ScannerException("Test"));
+            when(scanner.scanLicenses(URI.create(LICENSE_URL), Priority.INTERACTIVE)).thenThrow(new ScannerException("Test"));
 
             task.accept(editor);
 
@@ -120,7 +121,7 @@ class LicenseCleanerTest {
         @Test
         void ignoresScansWithoutLicenseResult() {
             editor.update(Field.DECLARED_LICENSE, TRUST, LICENSE_URL);
-            when(scanner.scanLicenses(URI.create(LICENSE_URL))).thenReturn(List.of());
+            when(scanner.scanLicenses(URI.create(LICENSE_URL), Priority.INTERACTIVE)).thenReturn(List.of());
 
             task.accept(editor);
 
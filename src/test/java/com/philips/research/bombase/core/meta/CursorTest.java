@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta;
+
+import com.github.packageurl.PackageURL;
+import com.philips.research.bombase.core.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorTest {
+    private static final PackageURL PURL = toPurl("pkg:npm/%40scope/name@1.0?key=value#path");
+    private static final Instant UPDATED = Instant.parse("2021-06-01T12:34:56.789012Z");
+
+    static PackageURL toPurl(String uri) {
+        try {
+            return new PackageURL(uri);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    @Test
+    void encodesAndDecodesPosition() {
+        final var encoded = new Cursor(UPDATED, PURL).encode();
+
+        final var decoded = Cursor.decode(encoded);
+
+        assertThat(encoded).matches("[A-Za-z0-9_-]+");
+        assertThat(decoded.getUpdated()).isEqualTo(UPDATED);
+        assertThat(decoded.getPurl()).isEqualTo(PURL);
+    }
+
+    @Test
+    void throws_malformedCursor() {
+        assertThatThrownBy(() -> Cursor.decode("Not a cursor"))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> Cursor.decode(encode("2021-06-01T12:34:56Z")))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> Cursor.decode(encode("yesterday pkg:npm/name@1.0")))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> Cursor.decode(encode("2021-06-01T12:34:56Z not-a-purl")))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    private String encode(String string) {
+        return Base64.getUrlEncoder().encodeToString(string.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -6,7 +6,10 @@
 package com.philips.research.bombase.core.meta;
 
 import com.github.packageurl.PackageURL;
+import com.philips.research.bombase.core.ImportRejectedException;
+import com.philips.research.bombase.core.InvalidCursorException;
 import com.philips.research.bombase.core.MetaService;
+import com.philips.research.bombase.core.UnknownImportException;
 import com.philips.research.bombase.core.UnknownPackageException;
 import com.philips.research.bombase.core.meta.registry.*;
 import com.philips.research.bombase.core.meta.registry.Package;
@@ -14,8 +17,13 @@ import com.philips.research.bombase.core.meta.registry.MetaRegistry.PackageListe
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -28,6 +36,7 @@ class MetaInteractorTest {
     private static final String VERSION = "version";
     private static final PackageURL PURL = toPurl("pkg:Type/Group/Name@Version");
     private static final String TITLE = "Title";
+    private static final int LIMIT = 10;
 
     final MetaStore store = mock(MetaStore.class);
     final MetaRegistry registry = new MetaRegistry(store, mock(QueuedTaskRunner.class));
@@ -44,6 +53,10 @@ class MetaInteractorTest {
         }
     }
 
+    private static MetaStore.Listing listing(Package pkg) {
+        return new MetaStore.Listing(pkg, Cursor.of(pkg));
+    }
+
     @Test
     void createsNewPackage() {
         when(store.createPackage(PURL)).thenReturn(pkg);
@@ -55,20 +68,113 @@ class MetaInteractorTest {
 
     @Test
     void getsLatestScans() {
-        when(store.latestScans(anyInt())).thenReturn(List.of(pkg));
+        when(store.latestScans(LIMIT + 1, null)).thenReturn(List.of(listing(pkg)));
 
-        final var latest = interactor.latestScans();
+        final var latest = interactor.latestScans(null, LIMIT);
 
-        assertThat(latest.get(0).purl).isEqualTo(PURL);
+        assertThat(latest.results.get(0).purl).isEqualTo(PURL);
+        assertThat(latest.next).isNull();
     }
 
     @Test
     void searchesForPackages() {
-        when(store.findPackages(TYPE, NAMESPACE, NAME, VERSION)).thenReturn(List.of(pkg));
+        when(store.findPackages(TYPE, NAMESPACE, NAME, VERSION, LIMIT + 1, null)).thenReturn(List.of(listing(pkg)));
+
+        final var found = interactor.search(TYPE, NAMESPACE, NAME, VERSION, null, LIMIT);
+
+        assertThat(found.results.get(0).purl).isEqualTo(PURL);
+    }
+
+    @Test
+    void providesCursorForNextPage() {
+        final var other = new Package(toPurl("pkg:type/other@1.0"));
+        when(store.latestScans(eq(2), any())).thenReturn(List.of(listing(pkg), listing(other)));
+
+        final var first = interactor.latestScans(null, 1);
+        assert first.next != null;
+        interactor.latestScans(first.next, 1);
+
+        assertThat(first.results).hasSize(1);
+        final var cursor = ArgumentCaptor.forClass(Cursor.class);
+        verify(store, times(2)).latestScans(eq(2), cursor.capture());
+        assertThat(cursor.getAllValues().get(1).getPurl()).isEqualTo(PURL);
+        assertThat(cursor.getAllValues().get(1).getUpdated()).isEqualTo(pkg.getLastUpdated());
+    }
+
+    @Test
+    void continuesFromListedPositionOfPackageUpdatedBetweenPages() {
+        final var other = new Package(toPurl("pkg:type/other@1.0"));
+        final var listed = pkg.getLastUpdated();
+        final var listings = List.of(listing(pkg), listing(other));
+        when(store.latestScans(eq(2), any())).thenAnswer(invocation -> {
+            Thread.sleep(2);
+            pkg.setUpdated();
+            return listings;
+        });
+
+        final var first = interactor.latestScans(null, 1);
+        assert first.next != null;
+        interactor.latestScans(first.next, 1);
+
+        final var cursor = ArgumentCaptor.forClass(Cursor.class);
+        verify(store, times(2)).latestScans(eq(2), cursor.capture());
+        assertThat(cursor.getAllValues().get(1).getUpdated()).isEqualTo(listed);
+        assertThat(pkg.getLastUpdated()).isAfter(listed);
+    }
+
+    @Test
+    void throws_invalidCursor() {
+        assertThatThrownBy(() -> interactor.latestScans("Not a cursor", LIMIT))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Nested
+    class ImportingPackages {
+        private final PackageURL otherPurl = toPurl("pkg:type/other@1.0");
+
+        @Test
+        void createsAbsentPackages() {
+            when(store.createPackageIfAbsent(PURL)).thenReturn(Optional.empty());
+            when(store.createPackageIfAbsent(otherPurl)).thenReturn(Optional.of(new Package(otherPurl)));
+
+            final var job = interactor.importPackages(List.of(PURL, otherPurl));
+
+            final var progress = interactor.getImport(job.id);
+            assertThat(progress.total).isEqualTo(2);
+            assertThat(progress.processed).isEqualTo(2);
+            assertThat(progress.created).isEqualTo(1);
+            assertThat(progress.done).isTrue();
+        }
+
+        @Test
+        void reportsProgressOfRunningImport() {
+            final List<Runnable> pending = new ArrayList<>();
+            final var queued = new MetaInteractor(registry, store, pending::add);
+            when(store.findPackage(PURL)).thenReturn(Optional.of(pkg));
+
+            final var job = queued.importPackages(List.of(PURL));
+
+            assertThat(queued.getImport(job.id).done).isFalse();
+            pending.forEach(Runnable::run);
+            assertThat(queued.getImport(job.id).done).isTrue();
+        }
+
+        @Test
+        void throws_rejectedImport() {
+            final var rejecting = new MetaInteractor(registry, store, task -> {
+                throw new RejectedExecutionException("Too many waiting tasks");
+            });
 
-        final var found = interactor.search(TYPE, NAMESPACE, NAME, VERSION);
+            assertThatThrownBy(() -> rejecting.importPackages(List.of(PURL)))
+                    .isInstanceOf(ImportRejectedException.class);
+            verify(store, never()).createPackageIfAbsent(any());
+        }
 
-        assertThat(found.get(0).purl).isEqualTo(PURL);
+        @Test
+        void throws_unknownImport() {
+            assertThatThrownBy(() -> interactor.getImport(UUID.randomUUID()))
+                    .isInstanceOf(UnknownImportException.class);
+        }
     }
 
     @Nested
@@ -89,6 +195,33 @@ class MetaInteractorTest {
             assertThat(attr.value).isEqualTo(TITLE);
         }
 
+        @Test
+        void queriesDetailsOfMultiplePackages() {
+            final var unknown = toPurl("pkg:type/unknown@1.0");
+            when(store.findPackage(unknown)).thenReturn(Optional.empty());
+            editor.update(Field.TITLE, Trust.TRUTH, TITLE);
+
+            final var found = interactor.getAllAttributes(List.of(PURL, unknown)).collect(Collectors.toList());
+
+            assertThat(found).hasSize(1);
+            assertThat(found.get(0).purl).isEqualTo(PURL);
+            assertThat(found.get(0).attributes.get(Field.TITLE.name().toLowerCase()).value).isEqualTo(TITLE);
+        }
+
+        @Test
+        void exportsPackageDetails() {
+            final var since = Instant.now();
+            when(store.streamPackages(TYPE, since)).thenReturn(Stream.of(pkg));
+            editor.update(Field.TITLE, Trust.TRUTH, TITLE);
+
+            final var exported = interactor.exportPackages(TYPE, since).collect(Collectors.toList());
+
+            assertThat(exported).hasSize(1);
+            assertThat(exported.get(0).purl).isEqualTo(PURL);
+            assertThat(exported.get(0).updated).isEqualTo(pkg.getLastUpdated());
+            assertThat(exported.get(0).attributes.get(Field.TITLE.name().toLowerCase()).value).isEqualTo(TITLE);
+        }
+
         @Test
         void throws_queryUnknownPackage() {
             when(store.findPackage(PURL)).thenReturn(Optional.empty());
@@ -66,6 +66,35 @@ class MetaRegistryTest {
         assertThat(pkg.getAttributeFor(FIELD).orElseThrow().getValue()).contains(VALUE);
     }
 
+    @Test
+    void notifiesStoreOfModifiedPackage() {
+        registry.edit(PURL, editor -> editor.update(FIELD, TRUST, VALUE));
+
+        verify(store).updatePackage(pkg);
+    }
+
+    @Test
+    void skipsStoreNotification_noModifications() {
+        registry.edit(PURL, editor -> { /* Nothing */ });
+
+        verify(store, never()).updatePackage(any());
+    }
+
+    @Test
+    void createsAbsentPackage() {
+        final var other = toPurl("pkg:type/other@1.0");
+        when(store.createPackageIfAbsent(other)).thenReturn(Optional.of(new Package(other)));
+
+        assertThat(registry.createIfAbsent(other)).isTrue();
+    }
+
+    @Test
+    void skipsCreation_existingPackage() {
+        when(store.createPackageIfAbsent(PURL)).thenReturn(Optional.empty());
+
+        assertThat(registry.createIfAbsent(PURL)).isFalse();
+    }
+
     @Nested
     class Listeners {
         final MetaRegistry.PackageListener listener = mock(MetaRegistry.PackageListener.class);
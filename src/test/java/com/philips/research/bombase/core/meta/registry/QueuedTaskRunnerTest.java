@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta.registry;
+
+import com.github.packageurl.PackageURL;
+import com.philips.research.bombase.core.meta.MetaStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class QueuedTaskRunnerTest {
+    private static final PackageURL PURL = toPurl("pkg:npm/name@1.0");
+    private static final PackageURL OTHER_PURL = toPurl("pkg:npm/other@1.0");
+    private static final String POOL = "Pool";
+    private static final Consumer<PackageAttributeEditor> NO_CALLBACK = editor -> {
+    };
+
+    private final MetaStore store = mock(MetaStore.class);
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final QueuedTaskRunner runner = new QueuedTaskRunner(store, pool -> executor);
+
+    static PackageURL toPurl(String uri) {
+        try {
+            return new PackageURL(uri);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        when(store.findPackage(any())).thenAnswer(param -> Optional.of(new Package(param.getArgument(0))));
+    }
+
+    @AfterEach
+    void afterEach() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void invokesCallbackAfterTask() throws Exception {
+        final var done = new CountDownLatch(1);
+        final Consumer<PackageAttributeEditor> task = mock(Consumer.class);
+
+        runner.execute(POOL, PURL, task, editor -> done.countDown());
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        //noinspection unchecked
+        verify(task).accept(any());
+    }
+
+    @Test
+    void serializesTasksForSamePackage() throws Exception {
+        final var active = new AtomicInteger();
+        final var maxActive = new AtomicInteger();
+        final var order = Collections.synchronizedList(new ArrayList<Integer>());
+        final var done = new CountDownLatch(20);
+
+        for (int i = 0; i < 20; i++) {
+            final var index = i;
+            runner.execute(POOL, PURL, editor -> {
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                sleep();
+                order.add(index);
+                active.decrementAndGet();
+            }, editor -> done.countDown());
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(maxActive.get()).isEqualTo(1);
+        final var expected = new ArrayList<Integer>();
+        for (int i = 0; i < 20; i++) {
+            expected.add(i);
+        }
+        assertThat(order).isEqualTo(expected);
+    }
+
+    @Test
+    void runsTasksForDifferentPackagesInParallel() throws Exception {
+        final var started = new CountDownLatch(2);
+        final var done = new CountDownLatch(2);
+        final Consumer<PackageAttributeEditor> task = editor -> {
+            started.countDown();
+            await(started);
+        };
+
+        runner.execute(POOL, PURL, task, editor -> done.countDown());
+        runner.execute(POOL, OTHER_PURL, task, editor -> done.countDown());
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void continuesAfterFailingTask() throws Exception {
+        final var done = new CountDownLatch(1);
+
+        runner.execute(POOL, PURL, editor -> {
+            throw new IllegalStateException("Failure");
+        }, NO_CALLBACK);
+        runner.execute(POOL, PURL, NO_CALLBACK, editor -> done.countDown());
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void executesTasksOnIndicatedPool() {
+        final Executor pool = mock(Executor.class);
+        final var pooled = new QueuedTaskRunner(store, name -> name.equals(POOL) ? pool : executor);
+
+        pooled.execute(POOL, PURL, NO_CALLBACK, NO_CALLBACK);
+
+        verify(pool).execute(any());
+    }
+
+    @Test
+    void dropsRejectedTaskAndContinuesWithNext() {
+        final List<String> log = new ArrayList<>();
+        final Executor full = task -> {
+            throw new RejectedExecutionException("Full");
+        };
+        final var pooled = new QueuedTaskRunner(store, name -> name.equals(POOL) ? full : Runnable::run);
+
+        pooled.execute("Other", PURL, editor -> pooled.execute(POOL, PURL, e -> log.add("rejected"), NO_CALLBACK),
+                editor -> pooled.execute("Other", PURL, e -> log.add("accepted"), NO_CALLBACK));
+
+        assertThat(log).containsExactly("accepted");
+    }
+
+    @Test
+    void runsQueuedTasksFromCallbackInOrder() {
+        final var direct = new QueuedTaskRunner(store);
+        final List<String> log = new ArrayList<>();
+
+        direct.execute(POOL, PURL, editor -> log.add("first"),
+                editor -> direct.execute(POOL, PURL, e -> log.add("third"), NO_CALLBACK));
+        log.add("second");
+
+        assertThat(log).containsExactly("first", "third", "second");
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta.registry;
+
+import com.philips.research.bombase.ConfigProperties.PoolProperties;
+import com.philips.research.bombase.ConfigProperties.Rejection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RunnerPoolsTest {
+    private static final String NAME = "SlowHarvester";
+    private static final String KEY = "slow-harvester";
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final RunnerPools pools = new RunnerPools(Map.of(KEY, new PoolProperties()
+            .setThreads(1).setQueueSize(1)));
+
+    @AfterEach
+    void afterEach() {
+        release.countDown();
+        pools.shutdown();
+    }
+
+    @Test
+    void convertsNamesToKebabCase() {
+        assertThat(RunnerPools.kebabCase("SourceLicensesHarvester")).isEqualTo("source-licenses-harvester");
+        assertThat(RunnerPools.kebabCase("PyPiHarvester")).isEqualTo("py-pi-harvester");
+    }
+
+    @Test
+    void sharesPoolPerName() {
+        assertThat(pools.get(NAME)).isSameAs(pools.get(NAME));
+        assertThat(pools.get("Other")).isNotSameAs(pools.get(NAME));
+    }
+
+    @Test
+    void rejectsTasksBeyondConfiguredQueue() {
+        final var pool = pools.get(NAME);
+        pool.execute(this::block);
+        pool.execute(this::block);
+
+        assertThatThrownBy(() -> pool.execute(this::block))
+                .isInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    void runsRejectedTasksInCaller_callerRunsPolicy() {
+        final var callerRuns = new RunnerPools(Map.of(KEY, new PoolProperties()
+                .setThreads(1).setQueueSize(1).setRejection(Rejection.CALLER_RUNS)));
+        final var pool = callerRuns.get(NAME);
+        pool.execute(this::block);
+        pool.execute(this::block);
+        final var caller = Thread.currentThread();
+        final var ranInCaller = new boolean[1];
+
+        pool.execute(() -> ranInCaller[0] = (Thread.currentThread() == caller));
+
+        assertThat(ranInCaller[0]).isTrue();
+        release.countDown();
+        callerRuns.shutdown();
+    }
+
+    private void block() {
+        try {
+            //noinspection ResultOfMethodCallIgnored
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.meta.registry;
+
+import com.philips.research.bombase.ConfigProperties.Rejection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ThreadPerTaskExecutorTest {
+    private static final int LIMIT = 2;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ThreadPerTaskExecutor executor = executor(Integer.MAX_VALUE, Rejection.DISCARD);
+
+    private static ThreadPerTaskExecutor executor(int maxWaiting, Rejection rejection) {
+        return new ThreadPerTaskExecutor(Executors.defaultThreadFactory(), LIMIT, maxWaiting, rejection);
+    }
+
+    @AfterEach
+    void afterEach() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void limitsConcurrentTasks() throws Exception {
+        final var active = new AtomicInteger();
+        final var maxActive = new AtomicInteger();
+        final var done = new CountDownLatch(10);
+
+        for (int i = 0; i < 10; i++) {
+            executor.execute(() -> {
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                sleep();
+                active.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(maxActive.get()).isEqualTo(LIMIT);
+    }
+
+    @Test
+    void rejectsTasksBeyondWaitingLimit() {
+        executor = executor(1, Rejection.DISCARD);
+
+        for (int i = 0; i < LIMIT + 1; i++) {
+            executor.execute(this::block);
+        }
+
+        assertThatThrownBy(() -> executor.execute(this::block))
+                .isInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    void runsTaskOnCaller_callerRunsRejection() {
+        executor = executor(0, Rejection.CALLER_RUNS);
+        final var thread = new AtomicReference<Thread>();
+
+        for (int i = 0; i < LIMIT; i++) {
+            executor.execute(this::block);
+        }
+        executor.execute(() -> thread.set(Thread.currentThread()));
+
+        assertThat(thread.get()).isSameAs(Thread.currentThread());
+    }
+
+    @Test
+    void rejectsTasksAfterShutdown() throws Exception {
+        executor.execute(this::block);
+
+        executor.shutdownNow();
+
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        assertThatThrownBy(() -> executor.execute(this::block))
+                .isInstanceOf(RejectedExecutionException.class);
+    }
+
+    private void block() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(10);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.scanner.domain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContentDigestTest {
+    @TempDir
+    Path first;
+    @TempDir
+    Path second;
+
+    private static void write(Path directory, String name, String content) throws IOException {
+        final var file = directory.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+
+    @Test
+    void identifiesEqualTrees() throws Exception {
+        write(first, "a/file.txt", "A");
+        write(first, "b.txt", "B");
+        write(second, "b.txt", "B");
+        write(second, "a/file.txt", "A");
+
+        assertThat(ContentDigest.of(first, Set.of()).getId()).isEqualTo(ContentDigest.of(second, Set.of()).getId());
+        assertThat(ContentDigest.of(first, Set.of()).getId().toString()).startsWith("ni:///sha-256;");
+    }
+
+    @Test
+    void distinguishesContentsAndNames() throws Exception {
+        write(first, "file.txt", "A");
+        write(second, "file.txt", "B");
+        final var digest = ContentDigest.of(second, Set.of()).getId();
+
+        assertThat(ContentDigest.of(first, Set.of()).getId()).isNotEqualTo(digest);
+        Files.move(second.resolve("file.txt"), second.resolve("other.txt"));
+        assertThat(ContentDigest.of(second, Set.of()).getId()).isNotEqualTo(digest);
+    }
+
+    @Test
+    void exposesFileHashes() throws Exception {
+        write(first, "a/file.txt", "A");
+        write(first, "b.txt", "A");
+
+        final var files = ContentDigest.of(first, Set.of()).getFiles();
+
+        assertThat(files).containsOnlyKeys("a/file.txt", "b.txt");
+        assertThat(files.get("a/file.txt")).isEqualTo(files.get("b.txt"));
+    }
+
+    @Test
+    void ignoresTopLevelNames() throws Exception {
+        write(first, "file.txt", "A");
+        write(second, "file.txt", "A");
+        write(second, ".git/HEAD", "Something");
+
+        assertThat(ContentDigest.of(second, Set.of(".git")).getId()).isEqualTo(ContentDigest.of(first, Set.of()).getId());
+    }
+}
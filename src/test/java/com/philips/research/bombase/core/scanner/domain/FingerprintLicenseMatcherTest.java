@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.scanner.domain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FingerprintLicenseMatcherTest {
+    private static final String MIT = "Copyright (c) 2021 Some Author\n\n"
+            + "Permission is hereby granted, free of charge, to any person obtaining a copy of this software and\n"
+            + "associated documentation files (the \"Software\"), to deal in the Software without restriction,\n"
+            + "including without limitation the rights to use, copy, modify, merge, publish, distribute,\n"
+            + "sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is\n"
+            + "furnished to do so, subject to the following conditions:\n\n"
+            + "The above copyright notice and this permission notice shall be included in all copies or\n"
+            + "substantial portions of the Software.\n\n"
+            + "THE SOFTWARE IS PROVIDED \"AS IS\", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING\n"
+            + "BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND\n"
+            + "NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,\n"
+            + "DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,\n"
+            + "OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.\n";
+    private static final String BSD_CLAUSES = "Redistribution and use in source and binary forms, with or without "
+            + "modification, are permitted provided that the following conditions are met:\n"
+            + "* Redistributions of source code must retain the above copyright notice, this list of conditions "
+            + "and the following disclaimer.\n"
+            + "* Redistributions in binary form must reproduce the above copyright notice, this list of conditions "
+            + "and the following disclaimer in the documentation and/or other materials provided with the distribution.\n";
+    private static final String BSD_NAME_CLAUSE = "* Neither the name of the copyright holder nor the names of its "
+            + "contributors may be used to endorse or promote products derived from this software without specific "
+            + "prior written permission.\n";
+    private static final String BSD_ADVERTISING_CLAUSE = "* All advertising materials mentioning features or use "
+            + "of this software must display the following acknowledgement: This product includes software "
+            + "developed by the organization.\n";
+    private static final String BSD_DISCLAIMER = "THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "
+            + "\"AS IS\" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES "
+            + "OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT "
+            + "HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR "
+            + "CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; "
+            + "LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF "
+            + "LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) "
+            + "ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.\n";
+
+    private final FingerprintLicenseMatcher matcher = FingerprintLicenseMatcher.load(null);
+
+    @Test
+    void matchesBundledLicenseText() {
+        final var match = matcher.match(MIT).orElseThrow();
+
+        assertThat(match.license).isEqualTo("MIT");
+        assertThat(match.score).isBetween(98, 100);
+    }
+
+    @Test
+    void ignoresMarkup() {
+        final var html = "<html><body><pre>" + MIT.replace("\n\n", "</p><p>") + "</pre></body></html>";
+
+        assertThat(matcher.match(html).orElseThrow().license).isEqualTo("MIT");
+    }
+
+    @Test
+    void distinguishesLicenseVariants() {
+        assertThat(matcher.match(BSD_CLAUSES + BSD_DISCLAIMER).orElseThrow().license).isEqualTo("BSD-2-Clause");
+        assertThat(matcher.match(BSD_CLAUSES + BSD_NAME_CLAUSE + BSD_DISCLAIMER).orElseThrow().license).isEqualTo("BSD-3-Clause");
+    }
+
+    @Test
+    void rejectsVariantMissingFromCorpus() {
+        final var bsd4 = BSD_CLAUSES + BSD_ADVERTISING_CLAUSE + BSD_NAME_CLAUSE + BSD_DISCLAIMER;
+        final var mit0 = MIT.replace("subject to the following conditions:\n\n"
+                + "The above copyright notice and this permission notice shall be included in all copies or\n"
+                + "substantial portions of the Software.\n", "");
+
+        assertThat(matcher.match(bsd4)).isEmpty();
+        assertThat(matcher.match(mit0)).isEmpty();
+    }
+
+    @Test
+    void rejectsPartialLicenseText() {
+        assertThat(matcher.match(MIT.substring(0, MIT.length() / 2))).isEmpty();
+    }
+
+    @Test
+    void rejectsLicenseEmbeddedInOtherText() {
+        final var readme = "# Project\n\nThis project does many useful things for many people, and is explained in "
+                + "great detail by the following paragraphs of text that have nothing to do with licensing at all. "
+                + "It is installed using the package manager, and configured by editing the configuration file. "
+                + "Please report any issues you find, and feel free to contribute improvements to the project.\n\n";
+
+        assertThat(matcher.match(readme + MIT)).isEmpty();
+    }
+
+    @Test
+    void rejectsUnknownText() {
+        assertThat(matcher.match("Just some text")).isEmpty();
+        assertThat(matcher.match("")).isEmpty();
+    }
+
+    @Test
+    void loadsAdditionalReferenceTexts(@TempDir Path directory) throws Exception {
+        final var text = "The quick brown fox jumps over the lazy dog, and may do so for any purpose whatsoever.";
+        Files.writeString(directory.resolve("Fox-1.0.txt"), text);
+        Files.writeString(directory.resolve("deprecated_Fox-0.1.txt"), text);
+
+        final var extended = FingerprintLicenseMatcher.load(directory);
+
+        assertThat(extended.match(text).orElseThrow().license).isEqualTo("Fox-1.0");
+        assertThat(extended.match(MIT).orElseThrow().license).isEqualTo("MIT");
+    }
+
+    @Test
+    void replacesReferenceText() {
+        final var custom = new FingerprintLicenseMatcher();
+        custom.add("License", "Some original license text for testing");
+        custom.add("License", "Another license text that replaces it");
+
+        assertThat(custom.match("Another license text that replaces it").orElseThrow().license).isEqualTo("License");
+        assertThat(custom.match("Some original license text for testing")).isEmpty();
+    }
+}
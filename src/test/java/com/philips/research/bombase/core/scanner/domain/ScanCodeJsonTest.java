@@ -7,14 +7,19 @@ package com.philips.research.bombase.core.scanner.domain;
 
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import pl.tlinkowski.annotation.basic.NullOr;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class ScanCodeJsonTest {
     private static final String LICENSE = "License";
@@ -39,23 +44,16 @@ class ScanCodeJsonTest {
         @Test
         void exposesLicense() {
             final var detection = new Detection(LICENSE, SCORE, new File(FILE), START, END);
-            final var result = new ScanCodeJson();
-            final var file = mock(FileJson.class);
-            when(file.getDetections()).thenReturn(List.of(detection));
-            result.files.add(file);
 
-            assertThat(result.getLicenses()).containsExactly(detection);
+            assertThat(ScanCodeJson.merge(Stream.of(detection))).containsExactly(detection);
         }
 
         @Test
         void combinesLicenseExpressions() {
             final var detection = new Detection(LICENSE, SCORE, new File(FILE), START, END);
-            final var scanResult = new ScanCodeJson();
-            final var file = mock(FileJson.class);
-            when(file.getDetections()).thenReturn(List.of(detection));
-            scanResult.files.addAll(List.of(file, file));
+            final var other = new Detection(LICENSE, SCORE, new File(FILE), START, END);
 
-            final var licenses = scanResult.getLicenses();
+            final var licenses = ScanCodeJson.merge(Stream.of(detection, other));
 
             assertThat(licenses).hasSize(1);
             assertThat(licenses.get(0).getConfirmations()).isEqualTo(2);
@@ -145,4 +143,48 @@ class ScanCodeJsonTest {
         }
 
     }
+
+    @Nested
+    class ResultFile {
+        @TempDir
+        Path tempDir;
+
+        private List<FileJson> read(String json) throws IOException {
+            final var file = tempDir.resolve("scancode.json");
+            Files.writeString(file, json);
+            final var result = new ArrayList<FileJson>();
+            ScanCodeJson.read(file.toFile(), result::add);
+            return result;
+        }
+
+        @Test
+        void readsFileEntries() throws Exception {
+            final var files = read("{\"headers\":[{\"tool_name\":\"scancode-toolkit\",\"options\":{\"--json\":\"x\"}}],"
+                    + "\"files\":[{\"path\":\"" + FILE + "\",\"type\":\"file\",\"license_expressions\":[\"" + KEY + "\"],"
+                    + "\"licenses\":[{\"key\":\"" + KEY + "\",\"score\":" + SCORE + ",\"start_line\":" + START
+                    + ",\"end_line\":" + END + ",\"spdx_license_key\":\"" + LICENSE + "\",\"matched_rule\":{\"licenses\":[]}}]},"
+                    + "{\"path\":\"other\",\"license_expressions\":[],\"licenses\":[],\"scan_errors\":[\"Timeout\"]}],"
+                    + "\"license_references\":[{\"key\":\"" + KEY + "\"}]}");
+
+            assertThat(files).hasSize(2);
+            final var detection = files.get(0).getDetections().get(0);
+            assertThat(detection.getExpression()).isEqualTo(LICENSE);
+            assertThat(detection.getFile()).isEqualTo(new File(FILE));
+            assertThat(detection.getScore()).isEqualTo(SCORE);
+            assertThat(files.get(1).path).isEqualTo("other");
+            assertThat(files.get(0).errors).isEmpty();
+            assertThat(files.get(1).errors).containsExactly("Timeout");
+        }
+
+        @Test
+        void readsResultWithoutFiles() throws Exception {
+            assertThat(read("{\"headers\":[]}")).isEmpty();
+        }
+
+        @Test
+        void throws_malformedResult() {
+            assertThatThrownBy(() -> read("[]"))
+                    .isInstanceOf(IOException.class);
+        }
+    }
 }
@@ -5,9 +5,19 @@
 
 package com.philips.research.bombase.core.scanner.domain;
 
+import com.philips.research.bombase.core.scanner.ScannerService.LicenseResult;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -23,4 +33,123 @@ class ScanCodeScannerTest {
         final var licenses = result.getLicenses();
         assertThat(licenses).hasSize(3);
     }
+
+    @Test
+    void usesConfiguredProcessCount() {
+        assertThat(new ScanCodeScanner(3).processCount()).isEqualTo(3);
+        assertThat(new ScanCodeScanner().processCount()).isEqualTo(Runtime.getRuntime().availableProcessors());
+    }
+
+    @Nested
+    class FileCache {
+        private final List<List<String>> scanned = new ArrayList<>();
+        private final ScanCodeScanner scanner = new FakeScanner();
+
+        @TempDir
+        Path first;
+        @TempDir
+        Path second;
+
+        private void write(Path directory, String name, String content) throws IOException {
+            final var file = directory.resolve(name);
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, content);
+        }
+
+        @Test
+        void scansOnlyUnseenFiles() throws Exception {
+            write(first, "a.txt", "MIT");
+            write(first, "b.txt", "Nothing");
+            write(second, "a.txt", "MIT");
+            write(second, "b.txt", "Nothing");
+            write(second, "sub/c.txt", "MIT License");
+            scanner.scan(first);
+
+            final var result = scanner.scan(second);
+
+            assertThat(scanned).containsExactly(List.of("a.txt", "b.txt"), List.of("sub/c.txt"));
+            final var license = result.getLicenses().get(0);
+            assertThat(license.getExpression()).isEqualTo("MIT");
+            assertThat(license.getConfirmations()).isEqualTo(2);
+        }
+
+        @Test
+        void reusesCachedResultsForIdenticalFiles() throws Exception {
+            write(first, "a.txt", "MIT");
+            write(second, "renamed.txt", "MIT");
+            scanner.scan(first);
+
+            final var result = scanner.scan(second);
+
+            assertThat(scanned).hasSize(1);
+            assertThat(result.getLicenses()).extracting(LicenseResult::getFile)
+                    .containsExactly(Path.of("renamed.txt").toFile());
+        }
+
+        @Test
+        void skipsIgnoredFiles() throws Exception {
+            write(first, "a.txt", "MIT");
+            write(first, "test/b.txt", "MIT");
+
+            final var result = scanner.scan(first);
+
+            assertThat(result.getLicenses()).extracting(LicenseResult::getFile)
+                    .containsExactly(Path.of("a.txt").toFile());
+        }
+
+        @Test
+        void rescansFilesWithScanErrors() throws Exception {
+            write(first, "a.txt", "MIT ERROR");
+            scanner.scan(first);
+
+            final var result = scanner.scan(first);
+
+            assertThat(scanned).hasSize(2);
+            assertThat(result.getLicenses()).hasSize(1);
+        }
+
+        @Test
+        void rescansSkippedFiles() throws Exception {
+            write(first, "a.txt", "MIT SKIP");
+            scanner.scan(first);
+
+            scanner.scan(first);
+
+            assertThat(scanned).hasSize(2);
+        }
+
+        /**
+         * Detects "MIT" in files containing that text, and records the scanned files.
+         * Files containing "ERROR" report a scan error, and files containing "SKIP" are left out of the result.
+         */
+        private class FakeScanner extends ScanCodeScanner {
+            @Override
+            void scanCode(Path directory, int processes, Consumer<FileJson> consumer) {
+                try (var files = Files.walk(directory)) {
+                    final var paths = files.filter(Files::isRegularFile)
+                            .map(file -> directory.relativize(file).toString())
+                            .sorted()
+                            .collect(Collectors.toList());
+                    scanned.add(paths);
+                    for (var path : paths) {
+                        final var content = Files.readString(directory.resolve(path));
+                        if (content.contains("SKIP")) {
+                            continue;
+                        }
+                        final var file = new FileJson();
+                        file.path = path;
+                        if (content.contains("MIT")) {
+                            file.expressions.add("MIT");
+                        }
+                        if (content.contains("ERROR")) {
+                            file.errors.add("Processing interrupted: timeout");
+                        }
+                        consumer.accept(file);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
 }
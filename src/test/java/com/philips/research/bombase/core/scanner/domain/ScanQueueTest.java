@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.scanner.domain;
+
+import com.philips.research.bombase.core.scanner.ScannerException;
+import com.philips.research.bombase.core.scanner.ScannerService.Priority;
+import com.philips.research.bombase.core.scanner.ScannerService.ScanResult;
+import com.philips.research.bombase.core.scanner.ScannerService.ScanState;
+import com.philips.research.bombase.core.scanner.UnknownScanException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ScanQueueTest {
+    private static final URI LOCATION = URI.create("https://example.com/location");
+    private static final ScanResult RESULT = List::of;
+
+    private final ScanQueue queue = new ScanQueue(1);
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<String> order = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        queue.shutdown();
+    }
+
+    private URI location(String name) {
+        return URI.create("https://example.com/" + name);
+    }
+
+    /**
+     * Occupies the single scan thread until released.
+     */
+    private ScanQueue.ScanJob block() throws InterruptedException {
+        final var job = queue.submit(location("blocking"), Priority.INTERACTIVE, () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new ScannerException("Interrupted");
+            }
+            return RESULT;
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        return job;
+    }
+
+    private Supplier<ScanResult> record(String name) {
+        return () -> {
+            order.add(name);
+            return RESULT;
+        };
+    }
+
+    @Test
+    void scansLocation() {
+        final var job = queue.submit(LOCATION, Priority.BATCH, () -> RESULT);
+
+        assertThat(job.await()).isSameAs(RESULT);
+        assertThat(queue.job(job.id).state).isEqualTo(ScanState.DONE);
+        assertThat(queue.job(job.id).finished).isNotNull();
+    }
+
+    @Test
+    void joinsQueuedScanOfSameLocation() throws Exception {
+        block();
+
+        final var job = queue.submit(LOCATION, Priority.BATCH, record("first"));
+        final var other = queue.submit(LOCATION, Priority.BATCH, record("second"));
+        release.countDown();
+
+        assertThat(other).isSameAs(job);
+        other.await();
+        assertThat(order).containsExactly("first");
+    }
+
+    @Test
+    void scansInOrderOfPriority() throws Exception {
+        block();
+
+        final var a = queue.submit(location("a"), Priority.BATCH, record("a"));
+        final var b = queue.submit(location("b"), Priority.BATCH, record("b"));
+        final var c = queue.submit(location("c"), Priority.INTERACTIVE, record("c"));
+        release.countDown();
+
+        List.of(a, b, c).forEach(ScanQueue.ScanJob::await);
+        assertThat(order).containsExactly("c", "a", "b");
+    }
+
+    @Test
+    void promotesQueuedScanForHigherPriorityRequest() throws Exception {
+        block();
+
+        final var a = queue.submit(location("a"), Priority.BATCH, record("a"));
+        final var b = queue.submit(location("b"), Priority.BATCH, record("b"));
+        queue.submit(location("b"), Priority.INTERACTIVE, record("other"));
+        release.countDown();
+
+        List.of(a, b).forEach(ScanQueue.ScanJob::await);
+        assertThat(queue.job(b.id).priority).isEqualTo(Priority.INTERACTIVE);
+        assertThat(order).containsExactly("b", "a");
+    }
+
+    @Test
+    void cancelsQueuedScan() throws Exception {
+        block();
+        final var job = queue.submit(LOCATION, Priority.BATCH, record("cancelled"));
+
+        queue.cancel(job.id);
+        release.countDown();
+
+        assertThatThrownBy(job::await)
+                .isInstanceOf(ScannerException.class)
+                .hasMessageContaining("cancelled");
+        assertThat(queue.job(job.id).state).isEqualTo(ScanState.CANCELLED);
+        queue.submit(location("next"), Priority.BATCH, record("next")).await();
+        assertThat(order).containsExactly("next");
+    }
+
+    @Test
+    void cancelsRunningScan() throws Exception {
+        final var job = block();
+
+        queue.cancel(job.id);
+
+        assertThatThrownBy(job::await)
+                .isInstanceOf(ScannerException.class)
+                .hasMessageContaining("cancelled");
+        assertThat(queue.job(job.id).state).isEqualTo(ScanState.CANCELLED);
+        assertThat(queue.submit(LOCATION, Priority.BATCH, () -> RESULT).await()).isSameAs(RESULT);
+    }
+
+    @Test
+    void failsQueuedScans_shutdown() throws Exception {
+        block();
+        final var job = queue.submit(LOCATION, Priority.BATCH, record("queued"));
+
+        queue.shutdown();
+
+        assertThatThrownBy(job::await)
+                .isInstanceOf(ScannerException.class)
+                .hasMessageContaining("shutdown");
+        assertThat(order).isEmpty();
+    }
+
+    @Test
+    void rescansAfterCompletion() {
+        final var job = queue.submit(LOCATION, Priority.BATCH, record("first"));
+        job.await();
+
+        final var other = queue.submit(LOCATION, Priority.BATCH, record("second"));
+        other.await();
+
+        assertThat(other).isNotSameAs(job);
+        assertThat(order).containsExactly("first", "second");
+        assertThat(queue.jobs()).hasSize(2);
+    }
+
+    @Test
+    void propagatesScanFailure() {
+        final var job = queue.submit(LOCATION, Priority.BATCH, () -> {
+            throw new ScannerException("Test");
+        });
+
+        assertThatThrownBy(job::await)
+                .isInstanceOf(ScannerException.class)
+                .hasMessage("Test");
+        assertThat(queue.job(job.id).state).isEqualTo(ScanState.FAILED);
+    }
+
+    @Test
+    void throws_unknownJob() {
+        final var id = UUID.randomUUID();
+
+        assertThatThrownBy(() -> queue.job(id))
+                .isInstanceOf(UnknownScanException.class);
+        assertThatThrownBy(() -> queue.cancel(id))
+                .isInstanceOf(UnknownScanException.class);
+    }
+}
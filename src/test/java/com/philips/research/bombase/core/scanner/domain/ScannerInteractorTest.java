@@ -11,12 +11,18 @@ import com.philips.research.bombase.core.scanner.ScannerException;
 import com.philips.research.bombase.core.scanner.ScannerService;
 import com.philips.research.bombase.core.scanner.ScannerStore;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.net.URI;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -24,12 +30,13 @@ import java.util.stream.Collectors;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class ScannerInteractorTest {
     private static final Path PATH = Path.of("directory", "path");
-    private static final URI LICENSE_URL = URI.create("http://example.com/license");
+    private static final URI LICENSE_URL = URI.create("https://example.com/license");
     private static final String LICENSE = "License";
 
     private final DownloadService downloader = mock(DownloadService.class);
@@ -59,6 +66,72 @@ class ScannerInteractorTest {
         verify(store, never()).store(any(), any());
     }
 
+    @Test
+    void reusesPriorScanResultOfEquivalentLocation() {
+        when(store.retrieve(LICENSE_URL)).thenAnswer((x) -> Optional.of(scanResult(LICENSE)));
+
+        final var licenses = interactor.scanLicenses(URI.create("http://EXAMPLE.com:80/license"));
+
+        assertThat(licenses).contains(LICENSE);
+        verify(downloader, never()).download(any(), any());
+    }
+
+    @Test
+    void reusesPriorScanResultOfIdenticalContent(@TempDir Path directory) throws Exception {
+        Files.writeString(directory.resolve("file.txt"), "Content");
+        final var content = ContentDigest.of(directory, Set.of()).getId();
+        setupDownloader(LICENSE_URL, directory);
+        final var scanResult = scanResult(LICENSE);
+        when(store.retrieve(content)).thenAnswer((x) -> Optional.of(scanResult));
+
+        final var licenses = interactor.scanLicenses(LICENSE_URL);
+
+        assertThat(licenses).containsExactly(LICENSE);
+        verify(scanner, never()).scan(any(), any());
+        verify(store).store(LICENSE_URL, scanResult);
+    }
+
+    @Test
+    void storesScanResultByContent(@TempDir Path directory) throws Exception {
+        Files.writeString(directory.resolve("file.txt"), "Content");
+        setupDownloader(LICENSE_URL, directory);
+        final var scanResult = scanResult(LICENSE);
+        when(scanner.scan(eq(directory), any())).thenAnswer((x) -> scanResult);
+
+        interactor.scanLicenses(LICENSE_URL);
+
+        verify(store).store(ContentDigest.of(directory, Set.of()).getId(), scanResult);
+    }
+
+    @Test
+    void matchesLicenseTextWithoutScanning(@TempDir Path directory) throws Exception {
+        Files.writeString(directory.resolve("license.txt"), "Line 1\nLine 2\n");
+        setupDownloader(LICENSE_URL, directory);
+        final var matcher = mock(LicenseMatcher.class);
+        when(matcher.match("Line 1\nLine 2\n")).thenReturn(Optional.of(new LicenseMatcher.Match(LICENSE, 95)));
+        final var interactor = new ScannerInteractor(store, downloader, scanner, new ScanQueue(1), matcher);
+
+        final var licenses = interactor.scanLicenses(LICENSE_URL);
+
+        assertThat(licenses).containsExactly(LICENSE);
+        verify(scanner, never()).scan(any(), any());
+        verify(store).store(eq(LICENSE_URL), argThat(result -> {
+            final var license = result.getLicenses().get(0);
+            return license.getScore() == 95 && license.getFile().getName().equals("license.txt")
+                    && license.getStartLine() == 1 && license.getEndLine() == 2;
+        }));
+    }
+
+    @Test
+    void scansUnmatchedLicenseText(@TempDir Path directory) throws Exception {
+        Files.writeString(directory.resolve("license.txt"), "Unknown");
+        setupDownloader(LICENSE_URL, directory);
+        when(scanner.scan(eq(directory), any())).thenAnswer((x) -> scanResult(LICENSE));
+        final var interactor = new ScannerInteractor(store, downloader, scanner, new ScanQueue(1), text -> Optional.empty());
+
+        assertThat(interactor.scanLicenses(LICENSE_URL)).containsExactly(LICENSE);
+    }
+
     @Test
     void prioritizesLicensesScannedFromUrl() {
         setupDownloader(LICENSE_URL, PATH);
@@ -69,6 +142,30 @@ class ScannerInteractorTest {
         assertThat(licenses).containsExactly("C", "B", "A");
     }
 
+    @Test
+    void joinsConcurrentScansOfSameLocation() throws Exception {
+        final var started = new CountDownLatch(1);
+        final var release = new CountDownLatch(1);
+        setupDownloader(LICENSE_URL, PATH);
+        when(scanner.scan(PATH)).thenAnswer((x) -> {
+            started.countDown();
+            release.await();
+            return scanResult(LICENSE);
+        });
+
+        final var first = CompletableFuture.supplyAsync(() -> interactor.scanLicenses(LICENSE_URL));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        final var second = CompletableFuture.supplyAsync(() -> interactor.scanLicenses(URI.create("http://example.com/license")));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertThat(first.get()).containsExactly(LICENSE);
+        assertThat(second.get()).containsExactly(LICENSE);
+        verify(downloader, times(1)).download(any(), any());
+        assertThat(interactor.getScans()).hasSize(1);
+        assertThat(interactor.getScans().get(0).state).isEqualTo(ScannerService.ScanState.DONE);
+    }
+
     @Test
     void throws_downloadFails() {
         when(downloader.download(eq(LICENSE_URL), any())).thenThrow(new DownloadException("Test"));
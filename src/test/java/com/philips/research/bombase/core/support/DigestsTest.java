@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.core.support;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DigestsTest {
+    private static final String VALUE = "abc";
+    private static final String HASH = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+
+    @Test
+    void hashesValueAsHexadecimal() {
+        assertThat(Digests.sha256Hex(VALUE)).isEqualTo(HASH);
+    }
+
+    @Test
+    void hashesFileContents(@TempDir Path directory) throws Exception {
+        final var file = directory.resolve("file.txt");
+        Files.writeString(file, VALUE);
+
+        assertThat(Digests.sha256(file)).isEqualTo(Digests.sha256().digest(VALUE.getBytes(StandardCharsets.UTF_8)));
+    }
+}
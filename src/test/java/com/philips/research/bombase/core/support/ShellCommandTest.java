@@ -10,6 +10,7 @@ import org.junit.jupiter.api.Test;
 import java.io.File;
 import java.time.Duration;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class ShellCommandTest {
@@ -26,6 +27,13 @@ class ShellCommandTest {
                 .execute("test");
     }
 
+    @Test
+    void capturesOutput() {
+        final var lines = new ShellCommand("echo").output("Hello", "world");
+
+        assertThat(lines).containsExactly("Hello world");
+    }
+
     @Test
     void throws_commandNotFound() {
         assertThatThrownBy(() -> new ShellCommand("not_found").execute())
@@ -46,4 +54,13 @@ class ShellCommandTest {
                 .isInstanceOf(ShellException.class)
                 .hasMessageContaining("Aborted 'sleep' after");
     }
+
+    @Test
+    void throws_interrupted() {
+        Thread.currentThread().interrupt();
+
+        assertThatThrownBy(() -> new ShellCommand("sleep").execute("5"))
+                .isInstanceOf(ShellException.class)
+                .hasMessageContaining("interrupted");
+    }
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.persistence;
+
+import com.github.packageurl.PackageURL;
+import com.philips.research.bombase.core.meta.registry.Field;
+import com.philips.research.bombase.core.meta.registry.PackageAttributeEditor;
+import com.philips.research.bombase.core.meta.registry.Trust;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileMetaStoreTest {
+    private static final PackageURL PURL = toPurl("pkg:npm/group/name@1.0");
+    private static final String TITLE = "Title";
+    private static final URI HOME_PAGE = URI.create("https://example.com");
+    private static final List<String> LICENSES = List.of("MIT", "Apache-2.0");
+
+    @TempDir
+    Path directory;
+
+    static PackageURL toPurl(String uri) {
+        try {
+            return new PackageURL(uri);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    @Test
+    void restoresPackagesAfterRestart() {
+        final var store = new FileMetaStore(directory);
+        final var pkg = store.createPackage(PURL);
+        new PackageAttributeEditor(pkg)
+                .update(Field.TITLE, Trust.LIKELY, "Other")
+                .update(Field.TITLE, Trust.CERTAIN, TITLE)
+                .update(Field.HOME_PAGE, Trust.PROBABLY, HOME_PAGE)
+                .update(Field.DETECTED_LICENSES, Trust.MAYBE, LICENSES);
+        pkg.setUpdated();
+        store.updatePackage(pkg);
+        store.close();
+
+        final var restored = new FileMetaStore(directory).findPackage(PURL).orElseThrow();
+
+        assertThat(restored.getLastUpdated()).isEqualTo(pkg.getLastUpdated());
+        final var title = restored.getAttributeFor(Field.TITLE).orElseThrow();
+        assertThat(title.getValue()).contains(TITLE);
+        assertThat(title.getAltValue()).contains("Other");
+        assertThat(title.getAltScore()).isEqualTo(pkg.getAttributeFor(Field.TITLE).orElseThrow().getAltScore());
+        assertThat(restored.getAttributeFor(Field.HOME_PAGE).orElseThrow().getValue()).contains(HOME_PAGE);
+        assertThat(restored.getAttributeFor(Field.DETECTED_LICENSES).orElseThrow().getValue()).contains(LICENSES);
+    }
+
+    @Test
+    void journalsConcurrentlyCreatedPackageOnce() throws Exception {
+        final var store = new FileMetaStore(directory);
+        final var executor = Executors.newFixedThreadPool(4);
+        try {
+            final var futures = new ArrayList<Future<?>>();
+            for (int i = 0; i < 20; i++) {
+                futures.add(executor.submit(() -> store.createPackage(PURL)));
+            }
+            for (var future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        store.close();
+
+        assertThat(Files.readAllLines(directory.resolve("packages.ndjson"))).hasSize(1);
+    }
+
+    @Test
+    void indexesRestoredPackages() {
+        final var store = new FileMetaStore(directory);
+        store.createPackage(PURL);
+        store.close();
+
+        final var restored = new FileMetaStore(directory);
+
+        assertThat(restored.findPackages("npm", "", "name", "", 10, null)).hasSize(1);
+        assertThat(restored.latestScans(10, null)).hasSize(1);
+    }
+
+    @Test
+    void compactsJournalOnStartup() throws Exception {
+        final var store = new FileMetaStore(directory);
+        final var pkg = store.createPackage(PURL);
+        for (int i = 0; i < 10; i++) {
+            store.updatePackage(pkg);
+        }
+        store.close();
+
+        new FileMetaStore(directory).close();
+
+        assertThat(Files.readAllLines(directory.resolve("packages.ndjson"))).hasSize(1);
+    }
+
+    @Test
+    void skipsCorruptRecords() throws Exception {
+        final var store = new FileMetaStore(directory);
+        store.createPackage(PURL);
+        store.close();
+        Files.writeString(directory.resolve("packages.ndjson"), "{\"purl\":\"pkg:np", StandardOpenOption.APPEND);
+
+        final var restored = new FileMetaStore(directory);
+
+        assertThat(restored.findPackage(PURL)).isPresent();
+    }
+}
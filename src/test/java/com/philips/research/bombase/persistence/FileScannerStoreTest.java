@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.persistence;
+
+import com.philips.research.bombase.core.scanner.ScannerService.LicenseResult;
+import com.philips.research.bombase.core.scanner.ScannerService.ScanResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FileScannerStoreTest {
+    private static final URI LOCATION = URI.create("git+https://example.com/repo.git@1.0");
+    private static final String EXPRESSION = "MIT OR Apache-2.0";
+    private static final int SCORE = 73;
+    private static final int CONFIRMATIONS = 3;
+    private static final File FILE = new File("path/to/file.txt");
+    private static final int START = 12;
+    private static final int END = 42;
+
+    @TempDir
+    Path directory;
+
+    private ScanResult scanResult() {
+        final var license = mock(LicenseResult.class);
+        when(license.getExpression()).thenReturn(EXPRESSION);
+        when(license.getScore()).thenReturn(SCORE);
+        when(license.getConfirmations()).thenReturn(CONFIRMATIONS);
+        when(license.getFile()).thenReturn(FILE);
+        when(license.getStartLine()).thenReturn(START);
+        when(license.getEndLine()).thenReturn(END);
+        final var result = mock(ScanResult.class);
+        when(result.getLicenses()).thenReturn(List.of(license));
+        return result;
+    }
+
+    @Test
+    void retrievesNothing_unknownLocation() {
+        final var store = new FileScannerStore(directory);
+
+        assertThat(store.retrieve(LOCATION)).isEmpty();
+    }
+
+    @Test
+    void retrievesStoredScanFromMemory() {
+        final var store = new FileScannerStore(directory);
+        final var scan = scanResult();
+
+        store.store(LOCATION, scan);
+
+        assertThat(store.retrieve(LOCATION)).contains(scan);
+    }
+
+    @Test
+    void restoresScanAfterRestart() {
+        new FileScannerStore(directory).store(LOCATION, scanResult());
+
+        final var restored = new FileScannerStore(directory).retrieve(LOCATION).orElseThrow();
+
+        assertThat(restored.getLicenses()).hasSize(1);
+        final var license = restored.getLicenses().get(0);
+        assertThat(license.getExpression()).isEqualTo(EXPRESSION);
+        assertThat(license.getScore()).isEqualTo(SCORE);
+        assertThat(license.getConfirmations()).isEqualTo(CONFIRMATIONS);
+        assertThat(license.getFile()).isEqualTo(FILE);
+        assertThat(license.getStartLine()).isEqualTo(START);
+        assertThat(license.getEndLine()).isEqualTo(END);
+    }
+
+    @Test
+    void storesConcurrentScansOfSameLocation() throws Exception {
+        final var store = new FileScannerStore(directory);
+        final var executor = Executors.newFixedThreadPool(4);
+        try {
+            final var futures = new ArrayList<Future<?>>();
+            for (int i = 0; i < 20; i++) {
+                futures.add(executor.submit(() -> store.store(LOCATION, scanResult())));
+            }
+            for (var future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(new FileScannerStore(directory).retrieve(LOCATION).orElseThrow().getLicenses()).hasSize(1);
+        try (var files = Files.list(directory.resolve("scans"))) {
+            assertThat(files).hasSize(1);
+        }
+    }
+
+    @Test
+    void ignoresCorruptScanFile() throws Exception {
+        new FileScannerStore(directory).store(LOCATION, scanResult());
+        try (var files = Files.list(directory.resolve("scans"))) {
+            Files.writeString(files.findFirst().orElseThrow(), "Corrupt");
+        }
+
+        assertThat(new FileScannerStore(directory).retrieve(LOCATION)).isEmpty();
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.persistence;
+
+import com.github.packageurl.PackageURL;
+import com.philips.research.bombase.core.meta.Cursor;
+import com.philips.research.bombase.core.meta.MetaStore.Listing;
+import com.philips.research.bombase.core.meta.registry.Package;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import pl.tlinkowski.annotation.basic.NullOr;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemoryMetaStoreTest {
+    private static final PackageURL PURL = toPurl("pkg:npm/group/name@1.0");
+    private static final PackageURL OTHER_VERSION = toPurl("pkg:npm/group/name@2.0");
+    private static final PackageURL OTHER_PURL = toPurl("pkg:maven/other/thing@1.0");
+    private static final int LIMIT = 100;
+
+    final MemoryMetaStore store = new MemoryMetaStore();
+
+    static PackageURL toPurl(String uri) {
+        try {
+            return new PackageURL(uri);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static List<Package> packagesOf(List<Listing> listings) {
+        return listings.stream().map(listing -> listing.pkg).collect(Collectors.toList());
+    }
+
+    private void touch(Package pkg) throws InterruptedException {
+        Thread.sleep(2);
+        pkg.setUpdated();
+        store.updatePackage(pkg);
+    }
+
+    @Test
+    void createsUniquePackage() {
+        final var pkg = store.createPackage(PURL);
+
+        assertThat(store.createPackage(PURL)).isSameAs(pkg);
+        assertThat(store.findPackage(PURL)).contains(pkg);
+    }
+
+    @Test
+    void createsPackageOnlyIfAbsent() {
+        final var pkg = store.createPackageIfAbsent(PURL).orElseThrow();
+
+        assertThat(store.createPackageIfAbsent(PURL)).isEmpty();
+        assertThat(store.findPackage(PURL)).contains(pkg);
+    }
+
+    @Test
+    void findsPackageVersionsMatchingPackageURL() {
+        final var pkg = store.createPackage(PURL);
+        store.createPackage(OTHER_VERSION);
+        store.createPackage(OTHER_PURL);
+
+        assertThat(store.findPackageVersions(PURL)).containsExactly(pkg);
+        assertThat(store.findPackageVersions(toPurl("pkg:npm/group/name@3.0"))).isEmpty();
+    }
+
+    @Test
+    void createsPackagesConcurrently() throws Exception {
+        final var executor = Executors.newFixedThreadPool(8);
+        final var futures = new ArrayList<Future<Package>>();
+        for (int i = 0; i < 1000; i++) {
+            final var purl = toPurl("pkg:npm/name@" + (i % 100));
+            futures.add(executor.submit(() -> store.createPackage(purl)));
+        }
+        for (var future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(store.latestScans(1000, null)).hasSize(100);
+    }
+
+    @Nested
+    class LatestScans {
+        @Test
+        void listsPackagesAntiChronologically() throws Exception {
+            final var first = store.createPackage(PURL);
+            final var second = store.createPackage(OTHER_PURL);
+            touch(second);
+            touch(first);
+
+            assertThat(packagesOf(store.latestScans(10, null))).containsExactly(first, second);
+        }
+
+        @Test
+        void limitsNumberOfResults() {
+            store.createPackage(PURL);
+            store.createPackage(OTHER_PURL);
+
+            assertThat(store.latestScans(1, null)).hasSize(1);
+        }
+
+        @Test
+        void continuesAfterCursor() throws Exception {
+            final var first = store.createPackage(PURL);
+            final var second = store.createPackage(OTHER_PURL);
+            final var third = store.createPackage(OTHER_VERSION);
+            touch(third);
+            touch(second);
+            touch(first);
+
+            assertThat(packagesOf(store.latestScans(1, Cursor.of(first)))).containsExactly(second);
+            assertThat(packagesOf(store.latestScans(10, Cursor.of(second)))).containsExactly(third);
+        }
+
+        @Test
+        void continuesAfterPackageUpdatedBetweenPages() throws Exception {
+            final var first = store.createPackage(PURL);
+            final var second = store.createPackage(OTHER_PURL);
+            final var third = store.createPackage(OTHER_VERSION);
+            touch(third);
+            touch(second);
+            touch(first);
+
+            final var page = store.latestScans(2, null);
+            touch(second);
+
+            assertThat(packagesOf(page)).containsExactly(first, second);
+            assertThat(packagesOf(store.latestScans(10, page.get(1).position))).containsExactly(third);
+        }
+    }
+
+    @Nested
+    class Export {
+        @Test
+        void streamsAllPackagesAntiChronologically() throws Exception {
+            final var first = store.createPackage(PURL);
+            final var second = store.createPackage(OTHER_PURL);
+            touch(second);
+            touch(first);
+
+            assertThat(store.streamPackages(null, null)).containsExactly(first, second);
+        }
+
+        @Test
+        void filtersOnType() {
+            final var pkg = store.createPackage(PURL);
+            store.createPackage(OTHER_PURL);
+
+            assertThat(store.streamPackages(PURL.getType(), null)).containsExactly(pkg);
+        }
+
+        @Test
+        void filtersOnModificationTimestamp() throws Exception {
+            final var old = store.createPackage(PURL);
+            final var recent = store.createPackage(OTHER_PURL);
+            touch(old);
+            touch(recent);
+
+            assertThat(store.streamPackages(null, recent.getLastUpdated())).containsExactly(recent);
+        }
+    }
+
+    @Nested
+    class Search {
+        @Test
+        void findsPackagesByPartialElements() {
+            final var pkg = store.createPackage(PURL);
+            store.createPackage(OTHER_PURL);
+
+            assertThat(packagesOf(store.findPackages("np", "rou", "am", "1.", LIMIT, null))).containsExactly(pkg);
+        }
+
+        @Test
+        void ignoresEmptyElements() {
+            final var pkg = store.createPackage(PURL);
+            final var other = store.createPackage(OTHER_PURL);
+
+            assertThat(packagesOf(store.findPackages("", "", "", "1.0", LIMIT, null))).containsExactlyInAnyOrder(pkg, other);
+        }
+
+        @Test
+        void excludesMissingElements() {
+            store.createPackage(toPurl("pkg:npm/name@1.0"));
+
+            assertThat(store.findPackages("", "n", "", "", LIMIT, null)).isEmpty();
+        }
+
+        @Test
+        void sortsResultsAntiChronologically() throws Exception {
+            final var pkg = store.createPackage(PURL);
+            final var other = store.createPackage(OTHER_VERSION);
+            touch(pkg);
+
+            assertThat(packagesOf(store.findPackages("", "", "name", "", LIMIT, null))).containsExactly(pkg, other);
+        }
+
+        @Test
+        void limitsSearchResults() {
+            for (int i = 0; i < 150; i++) {
+                store.createPackage(toPurl("pkg:npm/name@" + i));
+            }
+
+            final var found = packagesOf(store.findPackages("npm", "", "", "", LIMIT, null));
+
+            assertThat(found).hasSize(100);
+            assertThat(found.stream().map(Package::getPurl).collect(Collectors.toSet())).hasSize(100);
+        }
+
+        @Test
+        void pagesThroughSparseResults() {
+            for (int i = 0; i < 50; i++) {
+                store.createPackage(toPurl("pkg:pypi/name@" + i));
+            }
+            final var pkg = store.createPackage(PURL);
+            final var other = store.createPackage(OTHER_VERSION);
+
+            final var first = store.findPackages("npm", "", "", "", 1, null);
+            final var second = store.findPackages("npm", "", "", "", 1, first.get(0).position);
+
+            assertThat(first).hasSize(1);
+            assertThat(second).hasSize(1);
+            assertThat(List.of(first.get(0).pkg, second.get(0).pkg)).containsExactlyInAnyOrder(pkg, other);
+            assertThat(store.findPackages("npm", "", "", "", 1, second.get(0).position)).isEmpty();
+        }
+
+        @Test
+        void pagesThroughDenseResults() {
+            for (int i = 0; i < 10; i++) {
+                store.createPackage(toPurl("pkg:npm/name@" + i));
+            }
+
+            final var found = new ArrayList<Package>();
+            @NullOr Cursor cursor = null;
+            List<Listing> page;
+            do {
+                page = store.findPackages("npm", "", "", "", 3, cursor);
+                found.addAll(packagesOf(page));
+                cursor = page.isEmpty() ? null : page.get(page.size() - 1).position;
+            } while (!page.isEmpty());
+
+            assertThat(found).hasSize(10).doesNotHaveDuplicates();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2020-2021, Koninklijke Philips N.V., https://www.philips.com
+ * SPDX-License-Identifier: MIT
+ */
+
+package com.philips.research.bombase.persistence;
+
+import com.github.packageurl.PackageURL;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ValueIndexTest {
+    private static final PackageURL PURL = toPurl("pkg:npm/spring-boot@1.0");
+    private static final PackageURL OTHER_PURL = toPurl("pkg:npm/boot-loader@1.0");
+    private static final PackageURL THIRD_PURL = toPurl("pkg:npm/spring@1.0");
+
+    final ValueIndex index = new ValueIndex();
+
+    static PackageURL toPurl(String uri) {
+        try {
+            return new PackageURL(uri);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private void addNames() {
+        index.add(PURL.getName(), PURL);
+        index.add(OTHER_PURL.getName(), OTHER_PURL);
+        index.add(THIRD_PURL.getName(), THIRD_PURL);
+    }
+
+    @Test
+    void findsExactValue() {
+        addNames();
+
+        assertThat(index.get("spring")).containsExactly(THIRD_PURL);
+        assertThat(index.get("spring-b")).isEmpty();
+    }
+
+    @Test
+    void findsValuesContainingFragment() {
+        addNames();
+
+        assertThat(index.matching("boot")).containsExactlyInAnyOrder(PURL, OTHER_PURL);
+        assertThat(index.matching("spring")).containsExactlyInAnyOrder(PURL, THIRD_PURL);
+        assertThat(index.matching("ng-boot")).containsExactly(PURL);
+    }
+
+    @Test
+    void findsValuesContainingShortFragment() {
+        addNames();
+
+        assertThat(index.matching("-")).containsExactlyInAnyOrder(PURL, OTHER_PURL);
+        assertThat(index.matching("ad")).containsExactly(OTHER_PURL);
+    }
+
+    @Test
+    void findsNothing_fragmentWithUnknownGrams() {
+        addNames();
+
+        assertThat(index.matching("xyz")).isEmpty();
+        assertThat(index.matching("bootspring")).isEmpty();
+    }
+
+    @Test
+    void excludesMissingValues() {
+        index.add(null, PURL);
+
+        assertThat(index.get(null)).containsExactly(PURL);
+        assertThat(index.matching("a")).isEmpty();
+    }
+}